@@ -5,6 +5,16 @@ public class Reference {
     public static final String config_reload_enabled = "enableReload";
     public static final String gui_config_title = "mcanm.config.title";
     public static final String gui_config_reload_enabled = "mcanm.config.autoreload";
+    public static final String config_async_reload = "asyncReload";
+    public static final String gui_config_async_reload = "mcanm.config.asyncreload";
+    public static final String config_pose_cache_size = "poseCacheSize";
+    public static final String config_pose_cache_step = "poseCacheFrameStep";
+    public static final String gui_config_pose_cache_size = "mcanm.config.posecachesize";
+    public static final String gui_config_pose_cache_step = "mcanm.config.posecachestep";
+    public static final String config_parallel_skinning = "parallelSkinning";
+    public static final String config_parallel_skinning_threshold = "parallelSkinningThreshold";
+    public static final String gui_config_parallel_skinning = "mcanm.config.parallelskinning";
+    public static final String gui_config_parallel_skinning_threshold = "mcanm.config.parallelskinningthreshold";
     public static final String[] model_suffix_list = {".mhmd"};
     public static final String model_type = "model_type";
 
@@ -1,9 +1,14 @@
 package com.github.worldsender.mcanm.client;
 
+import java.util.function.Predicate;
+
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.PartRenderTypes;
 import com.github.worldsender.mcanm.common.resource.ResourcePool;
 
 import net.minecraft.resources.IResourceManager;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.resource.IResourceType;
+import net.minecraftforge.resource.VanillaResourceType;
 
 /**
  * Used to collect all {@link ClientResourceLocation}s and trigger an update when the {@link IResourceManager}
@@ -14,6 +19,13 @@ import net.minecraft.util.ResourceLocation;
 public class ClientResourcePool extends ResourcePool<ClientResourceLocation> {
     public static final ClientResourcePool instance = new ClientResourcePool();
 
+    @Override
+    protected void onResourcesChanged(Predicate<IResourceType> resourcePredicate) {
+        if (resourcePredicate.test(VanillaResourceType.TEXTURES)) {
+            PartRenderTypes.clear();
+        }
+    }
+
     protected ClientResourceLocation createResourceLocation(ResourceLocation resLoc) {
         return new ClientResourceLocation(this, resLoc);
     }
@@ -6,6 +6,8 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.common.ForgeConfigSpec.BooleanValue;
+import net.minecraftforge.common.ForgeConfigSpec.DoubleValue;
+import net.minecraftforge.common.ForgeConfigSpec.IntValue;
 
 public class MCAnmConfiguration {
     public static Pair<MCAnmConfiguration, ForgeConfigSpec> createConfigSpec() {
@@ -14,14 +16,55 @@ public class MCAnmConfiguration {
     }
 
     private BooleanValue enableReload;
+    private BooleanValue asyncReload;
+    private IntValue poseCacheSize;
+    private DoubleValue poseCacheFrameStep;
+    private BooleanValue parallelSkinning;
+    private IntValue parallelSkinningThreshold;
 
     public MCAnmConfiguration(ForgeConfigSpec.Builder builder) {
         enableReload = builder.comment("Enable reloading of models when the resource manager is reloaded")
                .translation(Reference.gui_config_reload_enabled)
                .define(Reference.config_reload_enabled, true);
+        asyncReload = builder.comment("Reload models in the background, the previous version is shown until loading is done")
+               .translation(Reference.gui_config_async_reload)
+               .define(Reference.config_async_reload, false);
+        poseCacheSize = builder.comment("Number of evaluated poses shared between entities playing the same animation, 0 to disable. "
+                + "When enabled, animations are evaluated at frames rounded to the frame step")
+               .translation(Reference.gui_config_pose_cache_size)
+               .defineInRange(Reference.config_pose_cache_size, 0, 0, 65536);
+        poseCacheFrameStep = builder.comment("Frames are rounded to multiples of this step when looking up shared poses")
+               .translation(Reference.gui_config_pose_cache_step)
+               .defineInRange(Reference.config_pose_cache_step, 0.05, 0.001, 10.0);
+        parallelSkinning = builder.comment("Skin the parts of large models on multiple threads")
+               .translation(Reference.gui_config_parallel_skinning)
+               .define(Reference.config_parallel_skinning, false);
+        parallelSkinningThreshold = builder.comment("Minimum number of vertices of a model to skin it on multiple threads")
+               .translation(Reference.gui_config_parallel_skinning_threshold)
+               .defineInRange(Reference.config_parallel_skinning_threshold, 8192, 0, Integer.MAX_VALUE);
     }
 
     public boolean isReloadEnabled() {
         return enableReload.get().booleanValue();
     }
+
+    public boolean isAsyncReloadEnabled() {
+        return asyncReload.get().booleanValue();
+    }
+
+    public int getPoseCacheSize() {
+        return poseCacheSize.get().intValue();
+    }
+
+    public double getPoseCacheFrameStep() {
+        return poseCacheFrameStep.get().doubleValue();
+    }
+
+    public boolean isParallelSkinningEnabled() {
+        return parallelSkinning.get().booleanValue();
+    }
+
+    public int getParallelSkinningThreshold() {
+        return parallelSkinningThreshold.get().intValue();
+    }
 }
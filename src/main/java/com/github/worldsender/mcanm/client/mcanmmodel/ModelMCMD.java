@@ -1,7 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -11,14 +10,15 @@ import java.util.UUID;
 import com.github.worldsender.mcanm.client.IRenderPass;
 import com.github.worldsender.mcanm.client.mcanmmodel.gl.IModelRenderData;
 import com.github.worldsender.mcanm.client.mcanmmodel.gl.ModelRenderDataGLArray;
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.BakedQuadBuckets;
 import com.github.worldsender.mcanm.client.mcanmmodel.stored.RawData;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitable;
 import com.github.worldsender.mcanm.client.model.IModelStateInformation;
 import com.github.worldsender.mcanm.common.resource.IResourceLocation;
 import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.github.worldsender.mcanm.common.util.ReloadableData;
 
-import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 
 /**
@@ -39,10 +39,12 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
         LOADING_FUNC = ModelRenderDataGLArray::new;
     }
 
-    private String artist;
-    private UUID modelUUID;
-    private Optional<IModelRenderData> model;
+    /**
+     * The compiled model, replaced as a whole when reloading
+     */
+    private volatile Snapshot snapshot;
     private ISkeleton skeleton;
+
     public ModelMCMD(IResourceLocation initial, ISkeleton skeleton) {
         super(initial, RawData::retrieveFrom, RawData.MISSING_DATA, skeleton);
     }
@@ -50,6 +52,7 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
     @Override
     protected void preInit(Object... args) {
         skeleton = Objects.requireNonNull(ISkeleton.class.cast(args[0]));
+        snapshot = new Snapshot(null, null, Optional.empty());
     }
 
     // For MC > 1.8
@@ -57,10 +60,18 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
     }
 
     @Override
+    @Deprecated
     protected void loadData(IModelVisitable data) {
-        this.artist = data.getArtist();
-        this.modelUUID = data.getModelUUID();
-        this.model = Optional.of(LOADING_FUNC.loadFrom(data, skeleton));
+        prepareData(data).run();
+    }
+
+    @Override
+    protected Runnable prepareData(IModelVisitable data) {
+        Snapshot snapshot = new Snapshot(
+                data.getArtist(),
+                data.getModelUUID(),
+                Optional.of(LOADING_FUNC.loadFrom(data, skeleton)));
+        return () -> this.snapshot = snapshot;
     }
 
     /**
@@ -70,37 +81,49 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
      */
     @Override
     public void render(IRenderPass renderPass) {
-        model.ifPresent(m -> m.render(renderPass));
+        snapshot.model.ifPresent(m -> m.render(renderPass));
+    }
+
+    /**
+     * Renders the given object in place, skinned with the pose given. Each rendered object can keep a pose of its own,
+     * see {@link ISkeleton#newPose()}.
+     *
+     * @param renderPass a description of the current render-pass
+     * @param pose       the pose of the rendered object
+     */
+    public void render(IRenderPass renderPass, SkeletonPose pose) {
+        snapshot.model.ifPresent(m -> m.render(renderPass, pose));
     }
 
     public Set<String> getTextureSlots() {
-        return model.map(IModelRenderData::getTextureSlots).orElse(Collections.emptySet());
+        return snapshot.model.map(IModelRenderData::getTextureSlots).orElse(Collections.emptySet());
     }
 
-    public List<BakedQuad> getAsBakedQuads(
+    public BakedQuadBuckets getAsBakedQuads(
             IModelStateInformation currentPass,
             Map<String, TextureAtlasSprite> slotToTex) {
-        return model.map(m -> m.getAsBakedQuads(currentPass, slotToTex)).orElse(Collections.emptyList());
+        return snapshot.model.map(m -> m.getAsBakedQuads(currentPass, slotToTex)).orElseGet(BakedQuadBuckets::new);
     }
 
     /**
      * @return the artist
      */
     public String getArtist() {
-        return artist;
+        return snapshot.artist;
     }
 
     /**
      * @return the modelUUID
      */
     public UUID getModelUUID() {
-        return modelUUID;
+        return snapshot.modelUUID;
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = super.hashCode();
+        UUID modelUUID = getModelUUID();
         result = prime * result + ((modelUUID == null) ? 0 : modelUUID.hashCode());
         result = prime * result + ((skeleton == null) ? 0 : skeleton.hashCode());
         return result;
@@ -118,11 +141,12 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
             return false;
         }
         ModelMCMD other = (ModelMCMD) obj;
+        UUID modelUUID = getModelUUID();
         if (modelUUID == null) {
-            if (other.modelUUID != null) {
+            if (other.getModelUUID() != null) {
                 return false;
             }
-        } else if (!modelUUID.equals(other.modelUUID)) {
+        } else if (!modelUUID.equals(other.getModelUUID())) {
             return false;
         }
         if (skeleton == null) {
@@ -133,4 +157,16 @@ public class ModelMCMD extends ReloadableData<IModelVisitable> implements IModel
     private interface DataLoader {
         IModelRenderData loadFrom(IModelVisitable data, ISkeleton skelet);
     }
+
+    private static final class Snapshot {
+        private final String artist;
+        private final UUID modelUUID;
+        private final Optional<IModelRenderData> model;
+
+        private Snapshot(String artist, UUID modelUUID, Optional<IModelRenderData> model) {
+            this.artist = artist;
+            this.modelUUID = modelUUID;
+            this.model = model;
+        }
+    }
 }
@@ -1,13 +1,13 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.gl;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.github.worldsender.mcanm.client.IRenderPass;
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.BakedQuadBuckets;
 import com.github.worldsender.mcanm.client.model.IModelStateInformation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 
-import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -26,6 +26,14 @@ public interface IModelRenderData {
      */
     void render(IRenderPass pass);
 
+    /**
+     * Renders the model from the given RenderPass, skinned with the pose given instead of the one of the pass.
+     *
+     * @param pass
+     * @param pose the pose of the rendered object, null for the default pose of the skeleton
+     */
+    void render(IRenderPass pass, SkeletonPose pose);
+
     /**
      * Get all texture slots of the model
      * @return
@@ -33,13 +41,13 @@ public interface IModelRenderData {
     Set<String> getTextureSlots();
 
     /**
-     * The totally inefficient method of minecraft to get block data
+     * Bakes the model in its current pose for block and item models, see {@link BakedQuadBuckets}
      *
      * @param currentPass
      * @param slotToTex
-     * @return
+     * @return the baked quads
      */
-    List<BakedQuad> getAsBakedQuads(
+    BakedQuadBuckets getAsBakedQuads(
             IModelStateInformation currentPass,
             Map<String, TextureAtlasSprite> slotToTex);
 }
@@ -6,23 +6,27 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
 
 import com.github.worldsender.mcanm.MCAnm;
 import com.github.worldsender.mcanm.client.IRenderPass;
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.BakedQuadBuckets;
 import com.github.worldsender.mcanm.client.mcanmmodel.parts.IPart;
 import com.github.worldsender.mcanm.client.mcanmmodel.parts.PartBuilder;
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.SkinningWorkspace;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IMaterialVisitor;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitable;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitor;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IPartVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
 import com.github.worldsender.mcanm.client.model.IModelStateInformation;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
 import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 
 import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -32,6 +36,8 @@ public abstract class ModelRenderAbstract<P extends IPart> implements IModelRend
     private final ISkeleton skeleton;
     private final Function<PartBuilder, P> buildingFunc;
     private IPart[] parts; // May have Random order
+    private int vertexCount;
+
     public ModelRenderAbstract(IModelVisitable data, ISkeleton skeleton, Function<PartBuilder, P> buildingFunc) {
         this.skeleton = skeleton;
         this.buildingFunc = buildingFunc;
@@ -40,43 +46,91 @@ public abstract class ModelRenderAbstract<P extends IPart> implements IModelRend
     }
 
     /**
-     * Sets up all bones for the following draw call. It is assumed that the bones are present in a breadth-first order
-     * so that applying a transformation to a bone can already access the transformed parent of this bone
+     * Sets up the pose of the rendered object for the following draw call, see
+     * {@link #setup(IModelStateInformation, SkeletonPose)}.
      *
-     * @param anim     the animation currently executed
-     * @param frame    the frame in the animation
-     * @param subFrame the subframe in the animation
+     * @param currAnimation the state of the rendered object
+     * @return the pose that has been set up
      */
-    private void setupBones(IAnimation anim, float frame) {
-        skeleton.setup(anim, frame);
+    public SkeletonPose setup(IModelStateInformation currAnimation) {
+        return setup(currAnimation, currAnimation.getSkeletonPose());
     }
 
-    public void setup(IModelStateInformation currAnimation) {
-        setupBones(currAnimation.getAnimation(), currAnimation.getFrame());
+    /**
+     * Sets up all bones for the following draw call. If no pose is given, the default pose of the skeleton is set up.
+     *
+     * @param currAnimation the state of the rendered object
+     * @param pose          the pose of the rendered object, may be null
+     * @return the pose that has been set up
+     */
+    public SkeletonPose setup(IModelStateInformation currAnimation, SkeletonPose pose) {
+        IAnimation anim = currAnimation.getAnimation();
+        float frame = currAnimation.getFrame();
+        if (pose == null) {
+            skeleton.setup(anim, frame, currAnimation.getEvaluationCursor());
+            return skeleton.getDefaultPose();
+        }
+        skeleton.setup(pose, anim, frame);
+        return pose;
     }
 
     @Override
     public void render(IRenderPass currentPass) {
-        setup(currentPass);
-        for (IPart part : this.parts) {
-            if (currentPass.shouldRenderPart(part.getName()))
-                part.render(currentPass);
+        render(currentPass, currentPass.getSkeletonPose());
+    }
+
+    @Override
+    public void render(IRenderPass currentPass, SkeletonPose pose) {
+        SkeletonPose actualPose = setup(currentPass, pose);
+        if (shouldSkinInParallel()) {
+            renderParallel(currentPass, actualPose);
+        } else {
+            for (IPart part : this.parts) {
+                if (currentPass.shouldRenderPart(part.getName()))
+                    part.render(currentPass, actualPose);
+            }
         }
         if (MCAnm.isDebug) {
             this.skeleton.debugDraw(Tessellator.getInstance());
         }
     }
 
-    // Totally inefficient
+    private boolean shouldSkinInParallel() {
+        return MCAnm.configuration().isParallelSkinningEnabled()
+                && vertexCount >= MCAnm.configuration().getParallelSkinningThreshold();
+    }
+
+    /**
+     * Skins all parts on the common fork-join pool, then emits them in order on the calling render thread.
+     */
+    private void renderParallel(IRenderPass currentPass, SkeletonPose pose) {
+        SkinningWorkspace workspace = SkinningWorkspace.get();
+        workspace.readGlobalTransform(currentPass.getActiveMatrixStack().getLast());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        List<Runnable> emitters = new ArrayList<>(this.parts.length);
+        for (int i = 0; i < this.parts.length; i++) {
+            IPart part = this.parts[i];
+            if (!currentPass.shouldRenderPart(part.getName()))
+                continue;
+            Runnable emitter = part.skinInParallel(currentPass, pose, workspace, i, tasks);
+            if (emitter != null)
+                emitters.add(emitter);
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (Runnable emitter : emitters) {
+            emitter.run();
+        }
+    }
+
     @Override
-    public List<BakedQuad> getAsBakedQuads(
+    public BakedQuadBuckets getAsBakedQuads(
             IModelStateInformation currentPass,
             Map<String, TextureAtlasSprite> slotToTex) {
-        List<BakedQuad> quads = new ArrayList<>();
-        setup(currentPass);
+        BakedQuadBuckets quads = new BakedQuadBuckets();
+        SkeletonPose pose = setup(currentPass);
         for (IPart part : this.parts) {
             if (currentPass.shouldRenderPart(part.getName()))
-                part.getAsBakedQuads(slotToTex, quads);
+                part.getAsBakedQuads(slotToTex, quads, pose);
         }
         return quads;
     }
@@ -132,6 +186,11 @@ public abstract class ModelRenderAbstract<P extends IPart> implements IModelRend
                     builder.addPoints(points);
                 }
 
+                @Override
+                public void visitPackedPoints(PackedPoints points) {
+                    builder.addPoints(points);
+                }
+
                 @Override
                 public void visitFace(short tess1, short tess2, short tess3) {
                     builder.addFace(tess1, tess2, tess3);
@@ -142,6 +201,11 @@ public abstract class ModelRenderAbstract<P extends IPart> implements IModelRend
                     builder.addIndices(tessOrder);
                 }
 
+                @Override
+                public void visitFaces(int[] tessOrder) {
+                    builder.addIndices(tessOrder);
+                }
+
                 @Override
                 public IMaterialVisitor visitTexture() {
                     return new IMaterialVisitor() {
@@ -161,6 +225,7 @@ public abstract class ModelRenderAbstract<P extends IPart> implements IModelRend
         @Override
         public void visitEnd() {
             ModelRenderAbstract.this.parts = this.parts.toArray(new IPart[0]);
+            ModelRenderAbstract.this.vertexCount = this.parts.stream().mapToInt(IPart::getVertexCount).sum();
         }
     }
 }
@@ -0,0 +1,70 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.util.Direction;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * The quads of a baked model, bucketed by the face of the block they are culled by. Quads that are not culled by any
+ * face are general quads, see {@link net.minecraft.client.renderer.model.IBakedModel#getQuads}.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class BakedQuadBuckets {
+    private final List<BakedQuad> general = new ArrayList<>();
+    private final Map<Direction, List<BakedQuad>> culled = new EnumMap<>(Direction.class);
+
+    /**
+     * @param cullFace the face the quad is culled by, null for general quads
+     * @param quad     the quad
+     */
+    public void add(Direction cullFace, BakedQuad quad) {
+        if (cullFace == null) {
+            general.add(quad);
+        } else {
+            culled.computeIfAbsent(cullFace, d -> new ArrayList<>()).add(quad);
+        }
+    }
+
+    /**
+     * @param side the face of the block, null for the general quads
+     * @return the quads culled by the face given, don't modify
+     */
+    public List<BakedQuad> getQuads(Direction side) {
+        if (side == null) {
+            return general;
+        }
+        return culled.getOrDefault(side, Collections.emptyList());
+    }
+
+    /**
+     * @return the quads of all buckets in one list, the general quads first. For callers that used to get a flat list.
+     */
+    public List<BakedQuad> getAllQuads() {
+        List<BakedQuad> all = new ArrayList<>(size());
+        all.addAll(general);
+        for (List<BakedQuad> quads : culled.values()) {
+            all.addAll(quads);
+        }
+        return all;
+    }
+
+    /**
+     * @return the number of quads in all buckets
+     */
+    public int size() {
+        int size = general.size();
+        for (List<BakedQuad> quads : culled.values()) {
+            size += quads.size();
+        }
+        return size;
+    }
+}
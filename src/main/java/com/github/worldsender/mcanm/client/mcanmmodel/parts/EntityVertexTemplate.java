@@ -0,0 +1,108 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * The emitted vertices of a part in the layout of {@link DefaultVertexFormats#ENTITY}, ready to be copied into a
+ * {@link BufferBuilder} in one go. Values that are the same every frame, the colour and the uvs, are written when the
+ * template is created, overlay and light only when they change. Each frame only positions and normals are updated.<br>
+ * A template belongs to one part and is only used on the render thread.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+/* package */ final class EntityVertexTemplate {
+    // position 3 floats, colour 4 bytes, uv 2 floats, overlay 2 shorts, light 2 shorts, normal 3 bytes, padding
+    private static final int VERTEX_SIZE = 36;
+    private static final int COLOR_OFFSET = 12;
+    private static final int UV_OFFSET = 16;
+    private static final int OVERLAY_OFFSET = 24;
+    private static final int LIGHT_OFFSET = 28;
+    private static final int NORMAL_OFFSET = 32;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final int[] indices;
+    private final ByteBuffer data;
+    private int overlay;
+    private int light;
+
+    /**
+     * @param indices the points emitted, in order
+     * @param uvs     the uvs of the points, see {@link PackedMesh#getUVs()}
+     */
+    public EntityVertexTemplate(int[] indices, float[] uvs) {
+        this.indices = indices;
+        // BufferBuilder copies the bytes as they are, they have to be in native order
+        this.data = ByteBuffer.allocateDirect(indices.length * VERTEX_SIZE).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < indices.length; i++) {
+            int o = i * VERTEX_SIZE;
+            data.putInt(o + COLOR_OFFSET, WHITE);
+            data.putFloat(o + UV_OFFSET, uvs[indices[i] * 2]);
+            data.putFloat(o + UV_OFFSET + 4, uvs[indices[i] * 2 + 1]);
+        }
+        writePacked(OVERLAY_OFFSET, 0);
+        writePacked(LIGHT_OFFSET, 0);
+    }
+
+    /**
+     * @return true if vertices can be copied into the buffer directly
+     */
+    public static boolean canWriteInto(IVertexBuilder buffer) {
+        return buffer instanceof BufferBuilder
+                && ((BufferBuilder) buffer).getVertexFormat() == DefaultVertexFormats.ENTITY;
+    }
+
+    private void writePacked(int offset, int packed) {
+        short u = (short) (packed & 0xFFFF);
+        short v = (short) (packed >> 16 & 0xFFFF);
+        for (int o = offset; o < data.capacity(); o += VERTEX_SIZE) {
+            data.putShort(o, u);
+            data.putShort(o + 2, v);
+        }
+    }
+
+    private static byte normalByte(float value) {
+        // The same as BufferBuilder.normal
+        return (byte) ((int) (Math.max(-1.0F, Math.min(1.0F, value)) * 127.0F) & 0xFF);
+    }
+
+    /**
+     * Updates the template and copies it into the buffer.
+     *
+     * @param buffer  the buffer, see {@link #canWriteInto(IVertexBuilder)}
+     * @param skinned the skinned points, {@link PackedMesh#VERTEX_STRIDE} floats per point
+     * @param overlay the packed overlay
+     * @param light   the packed light
+     */
+    public void emit(BufferBuilder buffer, float[] skinned, int overlay, int light) {
+        ByteBuffer data = this.data;
+        if (overlay != this.overlay) {
+            writePacked(OVERLAY_OFFSET, overlay);
+            this.overlay = overlay;
+        }
+        if (light != this.light) {
+            writePacked(LIGHT_OFFSET, light);
+            this.light = light;
+        }
+        for (int i = 0; i < indices.length; i++) {
+            int o = i * VERTEX_SIZE;
+            int s = indices[i] * PackedMesh.VERTEX_STRIDE;
+            data.putFloat(o, skinned[s]);
+            data.putFloat(o + 4, skinned[s + 1]);
+            data.putFloat(o + 8, skinned[s + 2]);
+            data.put(o + NORMAL_OFFSET, normalByte(skinned[s + 3]));
+            data.put(o + NORMAL_OFFSET + 1, normalByte(skinned[s + 4]));
+            data.put(o + NORMAL_OFFSET + 2, normalByte(skinned[s + 5]));
+        }
+        data.clear();
+        buffer.putBulkData(data);
+    }
+}
@@ -3,10 +3,11 @@ package com.github.worldsender.mcanm.client.mcanmmodel.parts;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 
 import com.github.worldsender.mcanm.client.IRenderPass;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 
-import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -14,15 +15,63 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 @OnlyIn(Dist.CLIENT)
 public interface IPart {
 
-    void render(IRenderPass currentPass);
+    /**
+     * Renders this part, skinned with the pose given.
+     *
+     * @param currentPass
+     * @param pose        the pose of the rendered object, null for the default pose of the skeleton
+     */
+    void render(IRenderPass currentPass, SkeletonPose pose);
+
+    /**
+     * Renders this part in the default pose of the skeleton.
+     *
+     * @param currentPass
+     * @deprecated use {@link #render(IRenderPass, SkeletonPose)}, every rendered object can have a pose of its own
+     */
+    @Deprecated
+    default void render(IRenderPass currentPass) {
+        render(currentPass, null);
+    }
+
+    /**
+     * Splits rendering this part into skinning, which may run on any thread, and emitting the skinned vertices, which
+     * has to happen on the render thread. This method is called on the render thread, it adds the tasks skinning this
+     * part to the list given. Once all of them have completed, the returned action emits the part.<br>
+     * The default implementation renders the part right away.
+     *
+     * @param currentPass the current render pass
+     * @param pose        the pose of the rendered object
+     * @param workspace   the workspace of the render thread, its global transformation has been read from the pass
+     * @param slot        the slot of the workspace to skin into, unique for each part of the rendered model
+     * @param tasks       the list to add the skinning tasks to
+     * @return the action emitting the skinned part, null if it has already been rendered
+     */
+    default Runnable skinInParallel(
+            IRenderPass currentPass,
+            SkeletonPose pose,
+            SkinningWorkspace workspace,
+            int slot,
+            List<ForkJoinTask<?>> tasks) {
+        render(currentPass, pose);
+        return null;
+    }
+
+    /**
+     * @return the number of vertices skinned when rendering this part
+     */
+    default int getVertexCount() {
+        return 0;
+    }
 
     /**
-     * The totally inefficient way minecraft wants us to render item models.
+     * Bakes this part for item and block models.
      *
      * @param slotToTex
-     * @param out
+     * @param out       the buckets to add the quads to
+     * @param pose      the pose to bake
      */
-    void getAsBakedQuads(Map<String, TextureAtlasSprite> slotToTex, List<BakedQuad> out);
+    void getAsBakedQuads(Map<String, TextureAtlasSprite> slotToTex, BakedQuadBuckets out, SkeletonPose pose);
 
     Set<String> getTextureSlots();
 
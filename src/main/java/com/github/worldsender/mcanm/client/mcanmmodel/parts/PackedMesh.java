@@ -0,0 +1,361 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
+import com.github.worldsender.mcanm.common.skeleton.BonePalette;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * The vertices of a part, packed into parallel primitive arrays. Positions and normals take up three floats per vertex,
+ * uvs two.<br>
+ * The bone influences are stored per cluster: vertices bound to the same bones with the same weights share a cluster.
+ * Every cluster has room for {@link #MAX_INFLUENCES} influences, of which the first
+ * <code>clusterInfluenceCounts[cluster]</code> are used. Weights are normalized to sum up to one when packing.
+ * Vertices without influences are static and keep their rest pose, influences of bones that are not part of the palette
+ * act as the identity.<br>
+ * When skinning, the bone matrices of each cluster are blended once. Each vertex is then transformed by the blended
+ * matrix of its cluster, which gives the same result as blending the vertex transformed by each bone. The global
+ * transformation of the render pass is folded into the bone matrices first.<br>
+ * A mesh is immutable. All per-frame state lives in the arrays passed in, so one mesh can be skinned by multiple
+ * threads at once as long as each of them uses its own scratch space.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class PackedMesh {
+    public static final int MAX_INFLUENCES = PackedPoints.MAX_BINDINGS;
+    /**
+     * The number of floats of a skinned vertex: x, y, z of the position, divided by its w component, the normal and u,
+     * v.
+     */
+    public static final int VERTEX_STRIDE = 8;
+    /**
+     * The number of floats of a transformation: a position matrix (4x4, row major) followed by a normal matrix (3x3,
+     * row major).
+     */
+    public static final int TRANSFORM_STRIDE = 25;
+    private static final float[] IDENTITY_TRANSFORM = {
+            1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, //
+            1, 0, 0, 0, 1, 0, 0, 0, 1 };
+    private static final int STATIC_CLUSTER = PackedPoints.NO_CLUSTER;
+
+    private final int vertexCount;
+    private final float[] positions;
+    private final float[] normals;
+    private final float[] uvs;
+    private final int[] clusterOf;
+    private final int clusterCount;
+    private final byte[] clusterInfluenceCounts;
+    private final int[] clusterBones;
+    private final float[] clusterWeights;
+
+    private PackedMesh(PackedPoints points, int[] clusterOf, List<Cluster> clusters) {
+        // The points are immutable, their arrays are shared instead of copied
+        this.vertexCount = points.getPointCount();
+        this.positions = points.getCoords();
+        this.normals = points.getNormals();
+        this.uvs = points.getTexCoords();
+        this.clusterOf = clusterOf;
+        this.clusterCount = clusters.size();
+        this.clusterInfluenceCounts = new byte[clusterCount];
+        this.clusterBones = new int[clusterCount * MAX_INFLUENCES];
+        this.clusterWeights = new float[clusterCount * MAX_INFLUENCES];
+        for (int c = 0; c < clusterCount; c++) {
+            Cluster cluster = clusters.get(c);
+            clusterInfluenceCounts[c] = (byte) cluster.bones.length;
+            System.arraycopy(cluster.bones, 0, clusterBones, c * MAX_INFLUENCES, cluster.bones.length);
+            System.arraycopy(cluster.weights, 0, clusterWeights, c * MAX_INFLUENCES, cluster.weights.length);
+        }
+    }
+
+    /**
+     * Reads the influences of a cluster of the points. Bindings without positive weight are dropped, the rest is
+     * sorted by bone and normalized.
+     *
+     * @param bones   a buffer of at least {@link #MAX_INFLUENCES} bones
+     * @param weights a buffer of at least {@link #MAX_INFLUENCES} weights
+     * @return the influences or null if the points of the cluster are static
+     */
+    private static Cluster readCluster(PackedPoints points, int cluster, int[] bones, float[] weights) {
+        int count = 0;
+        float strengthSummed = 0.0F;
+        for (int k = 0, bindingCount = points.getClusterBindingCount(cluster); k < bindingCount; k++) {
+            float weight = points.getClusterBindingValue(cluster, k);
+            if (weight <= 0.0f || count == MAX_INFLUENCES)
+                continue;
+            int bone = points.getClusterBoneIndex(cluster, k);
+            // Insertion sort, so that the same influences in a different order end up in the same cluster
+            int i = count++;
+            for (; i > 0 && bones[i - 1] > bone; i--) {
+                bones[i] = bones[i - 1];
+                weights[i] = weights[i - 1];
+            }
+            bones[i] = bone;
+            weights[i] = weight;
+            strengthSummed += weight;
+        }
+        if (count == 0) {
+            return null;
+        }
+        for (int i = 0; i < count; i++) {
+            weights[i] /= strengthSummed;
+        }
+        return new Cluster(Arrays.copyOf(bones, count), Arrays.copyOf(weights, count));
+    }
+
+    /**
+     * Packs the points given. The attribute arrays of the points are used as they are, only the bindings of each
+     * cluster of the points are normalized. If that doesn't merge or drop clusters, the clusters of the points are
+     * used as they are, too.
+     *
+     * @param points the points, in index order
+     * @return the packed mesh
+     */
+    public static PackedMesh pack(PackedPoints points) {
+        Map<Cluster, Integer> clusterIndices = new HashMap<>();
+        List<Cluster> clusters = new ArrayList<>();
+        int[] remapped = new int[points.getClusterCount()];
+        boolean isIdentity = true;
+        int[] bones = new int[MAX_INFLUENCES];
+        float[] weights = new float[MAX_INFLUENCES];
+        for (int c = 0; c < remapped.length; c++) {
+            Cluster cluster = readCluster(points, c, bones, weights);
+            if (cluster == null) {
+                remapped[c] = STATIC_CLUSTER;
+                isIdentity = false;
+                continue;
+            }
+            Integer index = clusterIndices.get(cluster);
+            if (index == null) {
+                index = clusters.size();
+                clusters.add(cluster);
+                clusterIndices.put(cluster, index);
+            }
+            remapped[c] = index;
+            isIdentity &= index == c;
+        }
+        int[] pointClusters = points.getClusterOf();
+        int[] clusterOf = isIdentity ? pointClusters : new int[pointClusters.length];
+        if (!isIdentity) {
+            for (int v = 0; v < clusterOf.length; v++) {
+                int cluster = pointClusters[v];
+                clusterOf[v] = cluster == PackedPoints.NO_CLUSTER ? STATIC_CLUSTER : remapped[cluster];
+            }
+        }
+        return new PackedMesh(points, clusterOf, clusters);
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return true if no vertex is bound to a bone, see {@link #transformStatic(float[], float[])}
+     */
+    public boolean isStatic() {
+        return clusterCount == 0;
+    }
+
+    /**
+     * @return the number of distinct sets of influences
+     */
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * The rest pose positions, x, y and z of vertex i start at <code>3 * i</code>. Don't modify.
+     */
+    public float[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * The rest pose normals, x, y and z of vertex i start at <code>3 * i</code>. Don't modify.
+     */
+    public float[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * The uvs, u and v of vertex i start at <code>2 * i</code>. Don't modify.
+     */
+    public float[] getUVs() {
+        return uvs;
+    }
+
+    /**
+     * @return the number of floats of scratch space needed to skin with a palette of the bone count given
+     */
+    public int getScratchSize(int boneCount) {
+        return (boneCount + 1 + clusterCount) * TRANSFORM_STRIDE;
+    }
+
+    /**
+     * Prepares the scratch space for {@link #skinRange(int, float[], int, int, float[])}: the transformation of every
+     * bone of the palette followed by the global transformation, then the global transformation alone in the slot
+     * after the last bone, used for static vertices and bones, then the blended transformation of every cluster.<br>
+     * The global transformation has the layout described by {@link #TRANSFORM_STRIDE}.
+     *
+     * @param palette the palette of the pose to skin with
+     * @param global  the transformation applied after skinning, null for the identity
+     * @param scratch the scratch space, at least {@link #getScratchSize(int)} long
+     */
+    public void prepare(BonePalette palette, float[] global, float[] scratch) {
+        float[] d = palette.getData();
+        int boneCount = palette.getBoneCount();
+        float[] t = scratch;
+        float[] g = global == null ? IDENTITY_TRANSFORM : global;
+        for (int bone = 0; bone < boneCount; bone++) {
+            int o = bone * TRANSFORM_STRIDE;
+            int m = bone * BonePalette.STRIDE + BonePalette.SKINNING_OFFSET;
+            // global * skinning
+            for (int r = 0; r < 4; r++) {
+                float g0 = g[r * 4], g1 = g[r * 4 + 1], g2 = g[r * 4 + 2], g3 = g[r * 4 + 3];
+                for (int c = 0; c < 4; c++) {
+                    t[o + r * 4 + c] = g0 * d[m + c] + g1 * d[m + 4 + c] + g2 * d[m + 8 + c] + g3 * d[m + 12 + c];
+                }
+            }
+            int n = bone * BonePalette.STRIDE + BonePalette.NORMAL_OFFSET;
+            // globalNormal * normal
+            for (int r = 0; r < 3; r++) {
+                float g0 = g[16 + r * 3], g1 = g[16 + r * 3 + 1], g2 = g[16 + r * 3 + 2];
+                for (int c = 0; c < 3; c++) {
+                    t[o + 16 + r * 3 + c] = g0 * d[n + c] + g1 * d[n + 3 + c] + g2 * d[n + 6 + c];
+                }
+            }
+        }
+        System.arraycopy(g, 0, t, boneCount * TRANSFORM_STRIDE, TRANSFORM_STRIDE);
+        blendClusters(t, boneCount);
+    }
+
+    /**
+     * Blends the prepared transformations of the bones of every cluster.
+     */
+    private void blendClusters(float[] t, int boneCount) {
+        int blendedOffset = (boneCount + 1) * TRANSFORM_STRIDE;
+        Arrays.fill(t, blendedOffset, blendedOffset + clusterCount * TRANSFORM_STRIDE, 0.0F);
+        for (int c = 0; c < clusterCount; c++) {
+            int o = blendedOffset + c * TRANSFORM_STRIDE;
+            for (int i = c * MAX_INFLUENCES, end = i + clusterInfluenceCounts[c]; i < end; i++) {
+                // Bones outside of the palette are static
+                int m = Math.min(clusterBones[i], boneCount) * TRANSFORM_STRIDE;
+                float weight = clusterWeights[i];
+                for (int k = 0; k < TRANSFORM_STRIDE; k++) {
+                    t[o + k] += weight * t[m + k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Skins the vertices <code>from</code> (inclusive) to <code>to</code> (exclusive) with prepared scratch space and
+     * stores them into out, at the same offset they'd have when skinning all vertices. Only reads the scratch space, so
+     * disjoint ranges can be skinned concurrently after a single call to
+     * {@link #prepare(BonePalette, float[], float[])}.
+     *
+     * @param boneCount the bone count of the palette the scratch space was prepared with
+     * @param scratch   the prepared scratch space
+     * @param from      the first vertex to skin
+     * @param to        the vertex after the last one to skin
+     * @param out       the array to store into, at least {@link #getVertexCount()} * {@link #VERTEX_STRIDE} long
+     */
+    public void skinRange(int boneCount, float[] scratch, int from, int to, float[] out) {
+        float[] b = scratch;
+        int staticOffset = boneCount * TRANSFORM_STRIDE;
+        int blendedOffset = staticOffset + TRANSFORM_STRIDE;
+        for (int v = from, o = from * VERTEX_STRIDE; v < to; v++, o += VERTEX_STRIDE) {
+            float px = positions[v * 3], py = positions[v * 3 + 1], pz = positions[v * 3 + 2];
+            float nx = normals[v * 3], ny = normals[v * 3 + 1], nz = normals[v * 3 + 2];
+            int cluster = clusterOf[v];
+            int m = cluster == STATIC_CLUSTER ? staticOffset : blendedOffset + cluster * TRANSFORM_STRIDE;
+            float w = b[m + 12] * px + b[m + 13] * py + b[m + 14] * pz + b[m + 15];
+            out[o] = (b[m] * px + b[m + 1] * py + b[m + 2] * pz + b[m + 3]) / w;
+            out[o + 1] = (b[m + 4] * px + b[m + 5] * py + b[m + 6] * pz + b[m + 7]) / w;
+            out[o + 2] = (b[m + 8] * px + b[m + 9] * py + b[m + 10] * pz + b[m + 11]) / w;
+            int n = m + 16;
+            out[o + 3] = b[n] * nx + b[n + 1] * ny + b[n + 2] * nz;
+            out[o + 4] = b[n + 3] * nx + b[n + 4] * ny + b[n + 5] * nz;
+            out[o + 5] = b[n + 6] * nx + b[n + 7] * ny + b[n + 8] * nz;
+            out[o + 6] = uvs[v * 2];
+            out[o + 7] = uvs[v * 2 + 1];
+        }
+    }
+
+    /**
+     * Skins all vertices with the palette given and stores them into out, in the layout described by
+     * {@link #VERTEX_STRIDE}.<br>
+     * The global transformation is folded into the bone matrices before skinning, so every vertex is transformed only
+     * once. It has the layout described by {@link #TRANSFORM_STRIDE}. Static vertices are only transformed by it.
+     *
+     * @param palette the palette of the pose to skin with
+     * @param global  the transformation applied after skinning, null for the identity
+     * @param out     the array to store into, at least {@link #getVertexCount()} * {@link #VERTEX_STRIDE} long
+     * @param scratch the scratch space, at least {@link #getScratchSize(int)} long
+     */
+    public void skin(BonePalette palette, float[] global, float[] out, float[] scratch) {
+        prepare(palette, global, scratch);
+        skinRange(palette.getBoneCount(), scratch, 0, vertexCount, out);
+    }
+
+    /**
+     * Transforms all vertices by the transformation given only, as if the mesh was static, and stores them into out in
+     * the same layout as {@link #skin(BonePalette, float[], float[], float[])}.
+     *
+     * @param global the transformation to apply, null for the identity
+     * @param out    the array to store into, at least {@link #getVertexCount()} * {@link #VERTEX_STRIDE} long
+     */
+    public void transformStatic(float[] global, float[] out) {
+        float[] b = global == null ? IDENTITY_TRANSFORM : global;
+        for (int v = 0, o = 0; v < vertexCount; v++, o += VERTEX_STRIDE) {
+            float px = positions[v * 3], py = positions[v * 3 + 1], pz = positions[v * 3 + 2];
+            float nx = normals[v * 3], ny = normals[v * 3 + 1], nz = normals[v * 3 + 2];
+            float w = b[12] * px + b[13] * py + b[14] * pz + b[15];
+            out[o] = (b[0] * px + b[1] * py + b[2] * pz + b[3]) / w;
+            out[o + 1] = (b[4] * px + b[5] * py + b[6] * pz + b[7]) / w;
+            out[o + 2] = (b[8] * px + b[9] * py + b[10] * pz + b[11]) / w;
+            out[o + 3] = b[16] * nx + b[17] * ny + b[18] * nz;
+            out[o + 4] = b[19] * nx + b[20] * ny + b[21] * nz;
+            out[o + 5] = b[22] * nx + b[23] * ny + b[24] * nz;
+            out[o + 6] = uvs[v * 2];
+            out[o + 7] = uvs[v * 2 + 1];
+        }
+    }
+
+    /**
+     * A set of bone influences, sorted by bone.
+     */
+    private static final class Cluster {
+        private final int[] bones;
+        private final float[] weights;
+
+        public Cluster(int[] bones, float[] weights) {
+            this.bones = bones;
+            this.weights = weights;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(bones) + Arrays.hashCode(weights);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Cluster)) {
+                return false;
+            }
+            Cluster other = (Cluster) obj;
+            return Arrays.equals(bones, other.bones) && Arrays.equals(weights, other.weights);
+        }
+    }
+}
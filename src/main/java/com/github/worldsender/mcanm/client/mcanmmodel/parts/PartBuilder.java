@@ -1,12 +1,10 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.parts;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
 import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
-import com.google.common.collect.Iterables;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -18,7 +16,7 @@ public class PartBuilder {
     /*package */ ByteBuf indexBuf;
     /*package */ String name;
     /*package */ String textureName;
-    /*package */ List<TesselationPoint> pointList;
+    /*package */ PackedPoints.Builder points;
     /*package */ ISkeleton skeleton;
     /*package */ int version;
 
@@ -31,7 +29,7 @@ public class PartBuilder {
         this.name = null;
         this.textureName = null;
         this.skeleton = null;
-        this.pointList = new ArrayList<>();
+        this.points = new PackedPoints.Builder();
         this.version = -1;
     }
 
@@ -56,26 +54,41 @@ public class PartBuilder {
     }
 
     public PartBuilder addPoint(TesselationPoint point) {
-        this.pointList.add(point);
+        this.points.add(point);
         return this;
     }
 
     public PartBuilder addPoints(Iterable<TesselationPoint> points) {
-        Iterables.addAll(pointList, points);
+        for (TesselationPoint point : points) {
+            this.points.add(point);
+        }
+        return this;
+    }
+
+    public PartBuilder addPoints(PackedPoints points) {
+        this.points.add(points);
         return this;
     }
 
     public PartBuilder addFace(short index1, short index2, short index3) {
-        this.indexBuf.writeShort(index1);
-        this.indexBuf.writeShort(index2);
-        this.indexBuf.writeShort(index3);
+        this.indexBuf.writeInt(Short.toUnsignedInt(index1));
+        this.indexBuf.writeInt(Short.toUnsignedInt(index2));
+        this.indexBuf.writeInt(Short.toUnsignedInt(index3));
         return this;
     }
 
     public PartBuilder addIndices(short[] indices) {
-        this.indexBuf.ensureWritable(indices.length * 2);
+        this.indexBuf.ensureWritable(indices.length * 4);
+        for (int i = 0; i < indices.length; i++) {
+            this.indexBuf.writeInt(Short.toUnsignedInt(indices[i]));
+        }
+        return this;
+    }
+
+    public PartBuilder addIndices(int[] indices) {
+        this.indexBuf.ensureWritable(indices.length * 4);
         for (int i = 0; i < indices.length; i++) {
-            this.indexBuf.writeShort(indices[i]);
+            this.indexBuf.writeInt(indices[i]);
         }
         return this;
     }
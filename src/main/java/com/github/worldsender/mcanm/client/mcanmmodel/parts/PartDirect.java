@@ -1,110 +1,197 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.parts;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinTask;
 
 import com.github.worldsender.mcanm.client.IRenderPass;
-import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
-import com.github.worldsender.mcanm.common.util.math.Tuple3f;
+import com.github.worldsender.mcanm.common.skeleton.BonePalette;
+import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 
-import org.lwjgl.opengl.GL30;
-
-import net.minecraft.client.renderer.RenderState;
+import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.RenderType;
-import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
-import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
-import net.minecraftforge.client.model.pipeline.BakedQuadBuilder;
 
 @OnlyIn(Dist.CLIENT)
 public class PartDirect implements IPart {
-    private static RenderType getPartRenderType(ResourceLocation texture) {
-        RenderType.State renderState = RenderType.State.getBuilder()
-            .texture(new RenderState.TextureState(texture, false, false))
-            // .transparency(new RenderState.TransparencyState(false))
-            .diffuseLighting(new RenderState.DiffuseLightingState(true))
-            .lightmap(new RenderState.LightmapState(true))
-            .overlay(new RenderState.OverlayState(true))
-            .build(true);
-        return RenderType.makeType("entity_solid_tris", DefaultVertexFormats.ENTITY, GL30.GL_TRIANGLES, 256, true, false, renderState);
-    }
+    /**
+     * The number of vertices skinned by one task when skinning in parallel
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 2048;
 
     private final String textureSlot;
     private final String name;
     private final String textureSlotForModel;
-    private final Point[] pointsList;
+    private final PackedMesh mesh;
+    /**
+     * The skeleton whose default pose is used when no pose is given
+     */
+    private final ISkeleton skeleton;
+    /**
+     * Static parts are not affected by the pose, they only need to be transformed by the render pass matrix
+     */
+    private final boolean isStatic;
     private final int[] indices;
+    /**
+     * For static parts, the points transformed by the global transformation they were computed with. Null if they
+     * have not been computed yet. Replaced as a whole, so that it can be read without locking.
+     */
+    private volatile StaticGeometry staticGeometry = null;
+    /**
+     * The global transformation of the last static transformation that missed the cached geometry. The result is only
+     * kept once the same transformation is seen twice, so moving objects don't allocate every frame.
+     */
+    private volatile float[] lastStaticMiss = null;
+    /**
+     * The vertices as they are copied into a {@link BufferBuilder}. Created on the first emission, only used on the
+     * render thread.
+     */
+    private EntityVertexTemplate vertexTemplate = null;
 
     public PartDirect(PartBuilder builder) {
-        Point[] points = new Point[builder.pointList.size()];
-        int idx = 0;
-        for (TesselationPoint point : builder.pointList) {
-            points[idx++] = Point.from(point, builder.skeleton);
-        }
-        short[] indices = new short[builder.indexBuf.readableBytes() / 2];
-        builder.indexBuf.nioBuffer().asShortBuffer().get(indices);
-        for (short i : indices) {
-            if (i < 0 || i >= points.length) {
+        PackedMesh mesh = PackedMesh.pack(builder.points.build());
+        int pointCount = mesh.getVertexCount();
+        int[] indices = new int[builder.indexBuf.readableBytes() / 4];
+        builder.indexBuf.nioBuffer().asIntBuffer().get(indices);
+        for (int i : indices) {
+            if (i < 0 || i >= pointCount) {
                 throw new IllegalArgumentException(
-                        "face index " + i + " too big. Only " + points.length + " points available");
+                        "face index " + i + " too big. Only " + pointCount + " points available");
             }
         }
-        this.pointsList = points;
+        this.mesh = mesh;
+        this.skeleton = builder.skeleton;
+        // Without bones, all bindings act like the identity
+        this.isStatic = mesh.isStatic() || builder.skeleton == ISkeleton.EMPTY;
         this.name = Objects.requireNonNull(builder.name, "A name is required");
         this.textureSlot = Objects.requireNonNull(builder.textureName, "texture name required");
         // In version 1 the texture path was included directly in the model
         // From version 2 upwards, there is a texture slot with a name
         this.textureSlotForModel = builder.version == 1 ? textureSlot : "#" + textureSlot;
-        // Required for the stupid item rendering...
-        this.indices = IntStream.range(0, indices.length).map(i -> indices[i]).toArray();
+        this.indices = indices;
     }
 
     @Override
-    public void render(IRenderPass currentPass) {
-        ResourceLocation texture = currentPass.getActualResourceLocation(textureSlot);
-        RenderType renderType = getPartRenderType(texture);
-        IVertexBuilder buffer = currentPass.getRenderTypeBuffer().getBuffer(renderType);
-        for (int i = 0; i < indices.length; i += 3) {
-            Point point1 = pointsList[indices[i]];
-            Point point2 = pointsList[indices[i + 1]];
-            Point point3 = pointsList[indices[i + 2]];
-            point1.render(buffer, currentPass);
-            point2.render(buffer, currentPass);
-            point3.render(buffer, currentPass);
+    public void render(IRenderPass currentPass, SkeletonPose pose) {
+        SkinningWorkspace workspace = SkinningWorkspace.get();
+        float[] global = workspace.readGlobalTransform(currentPass.getActiveMatrixStack().getLast());
+        // Points are shared between faces, skin each of them only once
+        float[] skinned = workspace.getSkinned(0, mesh.getVertexCount() * PackedMesh.VERTEX_STRIDE);
+        if (isStatic) {
+            skinned = transformStatic(global, skinned);
+        } else {
+            BonePalette palette = getPalette(pose);
+            float[] scratch = workspace.getScratch(0, mesh.getScratchSize(palette.getBoneCount()));
+            mesh.skin(palette, global, skinned, scratch);
         }
+        emit(currentPass, skinned);
     }
 
     @Override
-    public void getAsBakedQuads(Map<String, TextureAtlasSprite> slotToTex, List<BakedQuad> out) {
-        TextureAtlasSprite tex = retrieveSprite(slotToTex);
-        for (int i = 0; i < indices.length; i += 3) {
-            Point point1 = pointsList[indices[i]];
-            Point point2 = pointsList[indices[i + 1]];
-            Point point3 = pointsList[indices[i + 2]];
+    public Runnable skinInParallel(
+            IRenderPass currentPass,
+            SkeletonPose pose,
+            SkinningWorkspace workspace,
+            int slot,
+            List<ForkJoinTask<?>> tasks) {
+        float[] global = workspace.getGlobalTransform();
+        int vertexCount = mesh.getVertexCount();
+        float[] skinned = workspace.getSkinned(slot, vertexCount * PackedMesh.VERTEX_STRIDE);
+        if (isStatic) {
+            float[] transformed = transformStatic(global, skinned);
+            return () -> emit(currentPass, transformed);
+        }
+        // Preparing is cheap compared to the vertices, ranges of them are skinned concurrently
+        BonePalette palette = getPalette(pose);
+        int boneCount = palette.getBoneCount();
+        float[] scratch = workspace.getScratch(slot, mesh.getScratchSize(boneCount));
+        mesh.prepare(palette, global, scratch);
+        for (int from = 0; from < vertexCount; from += PARALLEL_CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(from + PARALLEL_CHUNK_SIZE, vertexCount);
+            tasks.add(ForkJoinTask.adapt(() -> mesh.skinRange(boneCount, scratch, start, end, skinned)));
+        }
+        return () -> emit(currentPass, skinned);
+    }
 
-            Tuple3f normal = new Tuple3f();
-            point1.vert.getNormal(normal);
+    /**
+     * @return the palette of the pose given, of the default pose of the skeleton if no pose is given
+     */
+    private BonePalette getPalette(SkeletonPose pose) {
+        return (pose == null ? skeleton.getDefaultPose() : pose).getPalette();
+    }
 
-            BakedQuadBuilder builder = new BakedQuadBuilder(tex);
-            builder.setContractUVs(true);
-            builder.setQuadOrientation(Direction.getFacingFromVector(normal.x, normal.y, normal.z));
+    /**
+     * Transforms the points of a static part, reusing the cached result if the transformation hasn't changed.
+     *
+     * @param global the global transformation
+     * @param buffer the buffer to transform into if the cache misses
+     * @return the transformed points, either the cached ones or the buffer
+     */
+    private float[] transformStatic(float[] global, float[] buffer) {
+        StaticGeometry cached = staticGeometry;
+        if (cached != null && Arrays.equals(cached.transform, global)) {
+            return cached.points;
+        }
+        mesh.transformStatic(global, buffer);
+        if (Arrays.equals(lastStaticMiss, global)) {
+            // Stable transformation, keep a copy as the buffer is reused
+            float[] points = Arrays.copyOf(buffer, mesh.getVertexCount() * PackedMesh.VERTEX_STRIDE);
+            staticGeometry = new StaticGeometry(global.clone(), points);
+        } else {
+            lastStaticMiss = global.clone();
+        }
+        return buffer;
+    }
 
-            point1.putIntoBakedQuadBuilder(builder, tex);
-            point2.putIntoBakedQuadBuilder(builder, tex);
-            point3.putIntoBakedQuadBuilder(builder, tex);
-            point1.putIntoBakedQuadBuilder(builder, tex);
+    /**
+     * Emits the skinned points into the buffer of the pass. Must be called on the render thread.
+     */
+    private void emit(IRenderPass currentPass, float[] skinned) {
+        ResourceLocation texture = currentPass.getActualResourceLocation(textureSlot);
+        RenderType renderType = PartRenderTypes.get(texture);
+        IVertexBuilder buffer = currentPass.getRenderTypeBuffer().getBuffer(renderType);
+        int overlay = currentPass.getPackedOverlay();
+        int light = currentPass.getPackedLight();
+        if (EntityVertexTemplate.canWriteInto(buffer)) {
+            if (vertexTemplate == null) {
+                vertexTemplate = new EntityVertexTemplate(indices, mesh.getUVs());
+            }
+            vertexTemplate.emit((BufferBuilder) buffer, skinned, overlay, light);
+            return;
+        }
+        for (int index : indices) {
+            int o = index * PackedMesh.VERTEX_STRIDE;
+            buffer.addVertex(
+                skinned[o], skinned[o + 1], skinned[o + 2],
+                1.0F, 1.0F, 1.0F, 1.0F,
+                skinned[o + 6], skinned[o + 7],
+                overlay,
+                light,
+                skinned[o + 3], skinned[o + 4], skinned[o + 5]);
+        }
+    }
 
-            out.add(builder.build());
+    @Override
+    public void getAsBakedQuads(Map<String, TextureAtlasSprite> slotToTex, BakedQuadBuckets out, SkeletonPose pose) {
+        TextureAtlasSprite tex = retrieveSprite(slotToTex);
+        float[] skinned = new float[mesh.getVertexCount() * PackedMesh.VERTEX_STRIDE];
+        if (isStatic) {
+            mesh.transformStatic(null, skinned);
+        } else {
+            BonePalette palette = getPalette(pose);
+            mesh.skin(palette, null, skinned, new float[mesh.getScratchSize(palette.getBoneCount())]);
         }
+        QuadBaker.bake(indices, skinned, tex, out);
     }
 
     private TextureAtlasSprite retrieveSprite(Map<String, TextureAtlasSprite> slotToTex) {
@@ -120,4 +207,19 @@ public class PartDirect implements IPart {
     public String getName() {
         return this.name;
     }
+
+    @Override
+    public int getVertexCount() {
+        return mesh.getVertexCount();
+    }
+
+    private static final class StaticGeometry {
+        private final float[] transform;
+        private final float[] points;
+
+        public StaticGeometry(float[] transform, float[] points) {
+            this.transform = transform;
+            this.points = points;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lwjgl.opengl.GL30;
+
+import net.minecraft.client.renderer.RenderState;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * The {@link RenderType}s parts are rendered with, one per texture. The render types are shared between all models,
+ * so that parts with the same texture are batched into the same buffer of the
+ * {@link net.minecraft.client.renderer.IRenderTypeBuffer}. The cache is cleared when the textures are reloaded.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class PartRenderTypes {
+    private static final Map<ResourceLocation, RenderType> renderTypes = new ConcurrentHashMap<>();
+
+    private PartRenderTypes() {}
+
+    private static RenderType makePartRenderType(ResourceLocation texture) {
+        RenderType.State renderState = RenderType.State.getBuilder()
+            .texture(new RenderState.TextureState(texture, false, false))
+            // .transparency(new RenderState.TransparencyState(false))
+            .diffuseLighting(new RenderState.DiffuseLightingState(true))
+            .lightmap(new RenderState.LightmapState(true))
+            .overlay(new RenderState.OverlayState(true))
+            .build(true);
+        return RenderType.makeType("entity_solid_tris", DefaultVertexFormats.ENTITY, GL30.GL_TRIANGLES, 256, true, false, renderState);
+    }
+
+    /**
+     * @param texture the resolved texture of the part
+     * @return the render type to render a part with the texture given
+     */
+    public static RenderType get(ResourceLocation texture) {
+        return renderTypes.computeIfAbsent(texture, PartRenderTypes::makePartRenderType);
+    }
+
+    /**
+     * Forgets all render types, they are rebuilt when they are next requested.
+     */
+    public static void clear() {
+        renderTypes.clear();
+    }
+}
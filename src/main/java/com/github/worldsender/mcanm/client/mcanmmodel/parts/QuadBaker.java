@@ -0,0 +1,259 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.Vec3i;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Bakes the triangles of a part into {@link BakedQuad}s. Two triangles sharing an edge are merged into one quad if they
+ * are coplanar and form a convex quad. The shared edge becomes the diagonal from the first to the third vertex, so the
+ * quad is rasterized as exactly the two triangles it was merged from. Triangles without a partner become degenerate
+ * quads, repeating their first vertex.<br>
+ * The vertex data is packed into the layout of {@link net.minecraft.client.renderer.vertex.DefaultVertexFormats#BLOCK}
+ * directly. Like {@link net.minecraftforge.client.model.pipeline.BakedQuadBuilder#setContractUVs(boolean)}, the uvs are
+ * pulled slightly towards their center, so quads don't sample the neighbouring sprites of the atlas at their edges.
+ * Quads lying on a face of the block are culled by that face.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+/* package */ final class QuadBaker {
+    // position 3 floats, colour 4 bytes, uv 2 floats, light 2 shorts, normal 3 bytes, padding
+    private static final int VERTEX_INTS = 8;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final float EPSILON = 1e-4F;
+    /**
+     * The fraction the uvs are pulled towards their center, the same as forge uses
+     */
+    private static final float UV_CONTRACTION = 1F / 0x100;
+
+    private QuadBaker() {}
+
+    private static long edgeKey(int from, int to) {
+        return (long) from << 32 | to & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Bakes the triangles given.
+     *
+     * @param indices the indices of the triangles, three per triangle
+     * @param skinned the points, {@link PackedMesh#VERTEX_STRIDE} floats per point
+     * @param tex     the sprite of the part
+     * @param out     the buckets to add the quads to
+     */
+    public static void bake(int[] indices, float[] skinned, TextureAtlasSprite tex, BakedQuadBuckets out) {
+        int triangleCount = indices.length / 3;
+        // The normalized normal and the distance to the origin of the plane of each triangle
+        float[] planes = new float[triangleCount * 4];
+        Map<Long, Integer> triangleByEdge = new HashMap<>();
+        for (int t = 0; t < triangleCount; t++) {
+            computePlane(skinned, indices[3 * t], indices[3 * t + 1], indices[3 * t + 2], planes, 4 * t);
+            for (int k = 0; k < 3; k++) {
+                triangleByEdge.putIfAbsent(edgeKey(indices[3 * t + k], indices[3 * t + (k + 1) % 3]), t);
+            }
+        }
+        boolean[] baked = new boolean[triangleCount];
+        int[] quad = new int[4];
+        for (int t = 0; t < triangleCount; t++) {
+            if (baked[t]) {
+                continue;
+            }
+            baked[t] = true;
+            quad[0] = indices[3 * t];
+            quad[1] = indices[3 * t + 1];
+            quad[2] = indices[3 * t + 2];
+            quad[3] = indices[3 * t];
+            for (int k = 0; k < 3; k++) {
+                int a = indices[3 * t + k], b = indices[3 * t + (k + 1) % 3], c = indices[3 * t + (k + 2) % 3];
+                // The partner runs along the shared edge in the opposite direction
+                Integer other = triangleByEdge.get(edgeKey(a, c));
+                if (other == null || baked[other]) {
+                    continue;
+                }
+                int d = pointAfterEdge(indices, other, a, c);
+                if (!canMerge(skinned, planes, t, other, a, b, c, d)) {
+                    continue;
+                }
+                baked[other] = true;
+                quad[0] = a;
+                quad[1] = b;
+                quad[2] = c;
+                quad[3] = d;
+                break;
+            }
+            emitQuad(skinned, planes, 4 * t, quad, tex, out);
+        }
+    }
+
+    private static void computePlane(float[] skinned, int p1, int p2, int p3, float[] planes, int o) {
+        int o1 = p1 * PackedMesh.VERTEX_STRIDE, o2 = p2 * PackedMesh.VERTEX_STRIDE, o3 = p3 * PackedMesh.VERTEX_STRIDE;
+        float ux = skinned[o2] - skinned[o1], uy = skinned[o2 + 1] - skinned[o1 + 1],
+                uz = skinned[o2 + 2] - skinned[o1 + 2];
+        float vx = skinned[o3] - skinned[o1], vy = skinned[o3 + 1] - skinned[o1 + 1],
+                vz = skinned[o3 + 2] - skinned[o1 + 2];
+        float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (!(length > 0)) {
+            // Degenerate triangle, never merged
+            planes[o] = planes[o + 1] = planes[o + 2] = planes[o + 3] = 0;
+            return;
+        }
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        planes[o] = nx;
+        planes[o + 1] = ny;
+        planes[o + 2] = nz;
+        planes[o + 3] = nx * skinned[o1] + ny * skinned[o1 + 1] + nz * skinned[o1 + 2];
+    }
+
+    /**
+     * @return the point of the triangle following the edge from a to c
+     */
+    private static int pointAfterEdge(int[] indices, int triangle, int a, int c) {
+        for (int k = 0; k < 3; k++) {
+            if (indices[3 * triangle + k] == a && indices[3 * triangle + (k + 1) % 3] == c) {
+                return indices[3 * triangle + (k + 2) % 3];
+            }
+        }
+        throw new IllegalStateException("Triangle doesn't contain the edge");
+    }
+
+    private static boolean canMerge(float[] skinned, float[] planes, int t1, int t2, int a, int b, int c, int d) {
+        int p1 = 4 * t1, p2 = 4 * t2;
+        float nx = planes[p1], ny = planes[p1 + 1], nz = planes[p1 + 2];
+        float cos = nx * planes[p2] + ny * planes[p2 + 1] + nz * planes[p2 + 2];
+        if (!(cos >= 1 - EPSILON)) {
+            return false;
+        }
+        int od = d * PackedMesh.VERTEX_STRIDE;
+        float distance = nx * skinned[od] + ny * skinned[od + 1] + nz * skinned[od + 2] - planes[p1 + 3];
+        if (Math.abs(distance) > EPSILON) {
+            return false;
+        }
+        // Convex if every corner turns the same way around the normal
+        int[] corners = { a, b, c, d };
+        for (int i = 0; i < 4; i++) {
+            int o0 = corners[i] * PackedMesh.VERTEX_STRIDE;
+            int o1 = corners[(i + 1) % 4] * PackedMesh.VERTEX_STRIDE;
+            int o2 = corners[(i + 2) % 4] * PackedMesh.VERTEX_STRIDE;
+            float ux = skinned[o1] - skinned[o0], uy = skinned[o1 + 1] - skinned[o0 + 1],
+                    uz = skinned[o1 + 2] - skinned[o0 + 2];
+            float vx = skinned[o2] - skinned[o1], vy = skinned[o2 + 1] - skinned[o1 + 1],
+                    vz = skinned[o2 + 2] - skinned[o1 + 2];
+            float turn = nx * (uy * vz - uz * vy) + ny * (uz * vx - ux * vz) + nz * (ux * vy - uy * vx);
+            if (!(turn > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the face of the block the quad lies on, null if it doesn't lie on one
+     */
+    private static Direction findCullFace(float[] skinned, int[] quad, Direction face, float[] planes, int plane) {
+        Vec3i direction = face.getDirectionVec();
+        float cos = planes[plane] * direction.getX() + planes[plane + 1] * direction.getY()
+                + planes[plane + 2] * direction.getZ();
+        if (!(cos >= 1 - EPSILON)) {
+            return null;
+        }
+        // The faces of the block are at 0 and 1
+        float boundary = direction.getX() + direction.getY() + direction.getZ() > 0 ? 1 : 0;
+        for (int point : quad) {
+            int o = point * PackedMesh.VERTEX_STRIDE;
+            float coordinate = Math.abs(direction.getX()) * skinned[o] + Math.abs(direction.getY()) * skinned[o + 1]
+                    + Math.abs(direction.getZ()) * skinned[o + 2];
+            if (Math.abs(coordinate - boundary) > EPSILON) {
+                return null;
+            }
+        }
+        return face;
+    }
+
+    private static int packNormal(float x, float y, float z) {
+        return normalByte(x) | normalByte(y) << 8 | normalByte(z) << 16;
+    }
+
+    private static int normalByte(float value) {
+        return (int) (Math.max(-1.0F, Math.min(1.0F, value)) * 127.0F) & 0xFF;
+    }
+
+    /**
+     * Pulls the atlas uvs of a quad towards their center, the same way forge's quad builder does. Every uv moves by at
+     * least a fraction of a texel, but never past the center.
+     *
+     * @param uvs  u and v of the four vertices, alternating
+     * @param tex  the sprite the uvs are in
+     */
+    private static void contractUVs(float[] uvs, TextureAtlasSprite tex) {
+        float texelsU = tex.getWidth() / (tex.getMaxU() - tex.getMinU());
+        float texelsV = tex.getHeight() / (tex.getMaxV() - tex.getMinV());
+        float minStep = 1F / (Math.max(texelsU, texelsV) * 0x100);
+        float[] center = new float[2];
+        for (int i = 0; i < 8; i++) {
+            center[i % 2] += uvs[i] / 4;
+        }
+        for (int i = 0; i < 8; i++) {
+            float c = center[i % 2];
+            float old = uvs[i];
+            float contracted = old * (1 - UV_CONTRACTION) + c * UV_CONTRACTION;
+            float step = old - contracted;
+            if (Math.abs(step) < minStep) {
+                if (Math.abs(old - c) < 2 * minStep) {
+                    // Too close to the center, don't move past it
+                    contracted = (old + c) / 2;
+                } else {
+                    contracted = old + (step < 0 ? minStep : -minStep);
+                }
+            }
+            uvs[i] = contracted;
+        }
+    }
+
+    private static void emitQuad(
+            float[] skinned,
+            float[] planes,
+            int plane,
+            int[] quad,
+            TextureAtlasSprite tex,
+            BakedQuadBuckets out) {
+        float[] uvs = new float[8];
+        for (int i = 0; i < 4; i++) {
+            int o = quad[i] * PackedMesh.VERTEX_STRIDE;
+            uvs[2 * i] = tex.getInterpolatedU(skinned[o + 6] * 16);
+            uvs[2 * i + 1] = tex.getInterpolatedV(skinned[o + 7] * 16);
+        }
+        contractUVs(uvs, tex);
+        int[] data = new int[4 * VERTEX_INTS];
+        for (int i = 0; i < 4; i++) {
+            int o = quad[i] * PackedMesh.VERTEX_STRIDE;
+            int v = i * VERTEX_INTS;
+            data[v] = Float.floatToRawIntBits(skinned[o]);
+            data[v + 1] = Float.floatToRawIntBits(skinned[o + 1]);
+            data[v + 2] = Float.floatToRawIntBits(skinned[o + 2]);
+            data[v + 3] = WHITE;
+            data[v + 4] = Float.floatToRawIntBits(uvs[2 * i]);
+            data[v + 5] = Float.floatToRawIntBits(uvs[2 * i + 1]);
+            data[v + 6] = 0;
+            data[v + 7] = packNormal(skinned[o + 3], skinned[o + 4], skinned[o + 5]);
+        }
+        Direction face;
+        if (planes[plane] == 0 && planes[plane + 1] == 0 && planes[plane + 2] == 0) {
+            // Degenerate, fall back to the normal of the first point
+            int o = quad[0] * PackedMesh.VERTEX_STRIDE;
+            face = Direction.getFacingFromVector(skinned[o + 3], skinned[o + 4], skinned[o + 5]);
+        } else {
+            face = Direction.getFacingFromVector(planes[plane], planes[plane + 1], planes[plane + 2]);
+        }
+        Direction cullFace = findCullFace(skinned, quad, face, planes, plane);
+        out.add(cullFace, new BakedQuad(data, -1, face, tex, true));
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.parts;
+
+import java.util.Arrays;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+
+import net.minecraft.client.renderer.Matrix3f;
+import net.minecraft.client.renderer.Matrix4f;
+import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.client.renderer.Vector4f;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * The per-thread buffers used for skinning. Parts are shared between all objects rendering the same model, so they
+ * keep no per-frame state themselves, everything that changes while skinning lives in here.<br>
+ * The buffers are indexed by slot, usually the index of the part in its model, so that the parts of one model can be
+ * skinned at the same time without sharing buffers. They grow as needed and are reused, the content of a slot is only
+ * valid until it is requested again.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class SkinningWorkspace {
+    private static final ThreadLocal<SkinningWorkspace> WORKSPACES = ThreadLocal.withInitial(SkinningWorkspace::new);
+    private static final float[] EMPTY = new float[0];
+
+    private float[][] skinned = new float[0][];
+    private float[][] scratch = new float[0][];
+    private final float[] globalTransform = new float[PackedMesh.TRANSFORM_STRIDE];
+    private final Vector4f positionBuffer = new Vector4f();
+    private final Vector3f normalBuffer = new Vector3f();
+
+    private SkinningWorkspace() {}
+
+    /**
+     * @return the workspace of the current thread
+     */
+    public static SkinningWorkspace get() {
+        return WORKSPACES.get();
+    }
+
+    private static float[][] ensureSlot(float[][] buffers, int slot) {
+        if (slot < buffers.length) {
+            return buffers;
+        }
+        float[][] grown = Arrays.copyOf(buffers, Math.max(slot + 1, buffers.length * 2));
+        Arrays.fill(grown, buffers.length, grown.length, EMPTY);
+        return grown;
+    }
+
+    /**
+     * @return a buffer for skinned vertices of at least the size given
+     */
+    public float[] getSkinned(int slot, int size) {
+        skinned = ensureSlot(skinned, slot);
+        if (skinned[slot].length < size) {
+            skinned[slot] = new float[size];
+        }
+        return skinned[slot];
+    }
+
+    /**
+     * @return a buffer for scratch space of at least the size given, see {@link PackedMesh#getScratchSize(int)}
+     */
+    public float[] getScratch(int slot, int size) {
+        scratch = ensureSlot(scratch, slot);
+        if (scratch[slot].length < size) {
+            scratch[slot] = new float[size];
+        }
+        return scratch[slot];
+    }
+
+    /**
+     * @return the global transformation last read by {@link #readGlobalTransform(MatrixStack.Entry)}
+     */
+    public float[] getGlobalTransform() {
+        return globalTransform;
+    }
+
+    /**
+     * Reads the matrices of the entry into the layout described by {@link PackedMesh#TRANSFORM_STRIDE}. The fields of
+     * the matrices are not accessible, so the columns are read by transforming the unit vectors.
+     *
+     * @return the global transformation, valid until it is read again
+     */
+    public float[] readGlobalTransform(MatrixStack.Entry entry) {
+        float[] trgt = globalTransform;
+        Matrix4f matrix = entry.getMatrix();
+        Vector4f column = positionBuffer;
+        for (int c = 0; c < 4; c++) {
+            column.set(c == 0 ? 1 : 0, c == 1 ? 1 : 0, c == 2 ? 1 : 0, c == 3 ? 1 : 0);
+            column.transform(matrix);
+            trgt[c] = column.getX();
+            trgt[4 + c] = column.getY();
+            trgt[8 + c] = column.getZ();
+            trgt[12 + c] = column.getW();
+        }
+        Matrix3f normalMatrix = entry.getNormal();
+        Vector3f normalColumn = normalBuffer;
+        for (int c = 0; c < 3; c++) {
+            normalColumn.set(c == 0 ? 1 : 0, c == 1 ? 1 : 0, c == 2 ? 1 : 0);
+            normalColumn.transform(normalMatrix);
+            trgt[16 + c] = normalColumn.getX();
+            trgt[19 + c] = normalColumn.getY();
+            trgt[22 + c] = normalColumn.getZ();
+        }
+        return trgt;
+    }
+}
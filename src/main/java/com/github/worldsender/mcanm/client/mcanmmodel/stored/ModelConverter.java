@@ -0,0 +1,565 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.stored;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IMaterialVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IPartVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
+import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
+import com.github.worldsender.mcanm.common.resource.IResource;
+import com.github.worldsender.mcanm.common.resource.ResourceAdapter;
+import com.github.worldsender.mcanm.common.skeleton.visitor.IBoneVisitor;
+import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitable;
+import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitor;
+import com.github.worldsender.mcanm.common.util.math.Quat4f;
+import com.github.worldsender.mcanm.common.util.math.Vector3f;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Converts .mcmd models of older versions to version 4, see {@link RawDataV3}. Runs without the game, only the mod and
+ * its libraries have to be on the classpath, e.g. with <code>gradlew convertModels --args="&lt;paths&gt;"</code>.<br>
+ * Every file given is converted in place, directories are searched for .mcmd files. Files that already are version 4
+ * are left as they are. Every section is written with the smallest encoding its values fit into.<br>
+ * Version 1 models contain their skeleton and name their textures by resource location. Newer versions have neither, so
+ * code loading the skeleton from the model or relying on the texture locations breaks after converting. Version 1
+ * models are therefore only converted when {@value #CONVERT_V1_FLAG} is given. The skeleton is then written into a
+ * .mcskl file next to the model, load it from there after converting. The textures become texture slots of the same
+ * name.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class ModelConverter {
+    private static final String MODEL_EXTENSION = ".mcmd";
+    private static final String SKELETON_EXTENSION = ".mcskl";
+    private static final long SKELETON_MAGIC = com.github.worldsender.mcanm.common.skeleton.stored.RawData.MAGIC_NUMBER;
+    /**
+     * Skeletons with more bones than this are written as version 2, with int bone counts and parents
+     */
+    private static final int MAX_BONES_V1 = 0xFF;
+    private static final int VERSION = 4;
+    /**
+     * Has to be given to convert models of version 1
+     */
+    public static final String CONVERT_V1_FLAG = "--convert-v1";
+
+    private ModelConverter() {}
+
+    public static void main(String[] args) throws IOException {
+        List<String> paths = new ArrayList<>(Arrays.asList(args));
+        boolean convertV1 = paths.remove(CONVERT_V1_FLAG);
+        if (paths.isEmpty()) {
+            System.err.println("Usage: ModelConverter [" + CONVERT_V1_FLAG + "] <file or directory>...");
+            System.exit(2);
+        }
+        int failed = 0;
+        for (String arg : paths) {
+            List<Path> files;
+            try (Stream<Path> found = Files.walk(Paths.get(arg))) {
+                files = found.filter(p -> p.toString().endsWith(MODEL_EXTENSION)).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                try {
+                    convert(file, convertV1);
+                } catch (IOException | ModelFormatException e) {
+                    System.err.println("Failed to convert " + file + ": " + e);
+                    failed++;
+                }
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts the model in place.
+     *
+     * @param file      the model
+     * @param convertV1 whether to convert models of version 1, see {@link ModelConverter}
+     * @return true if the model has been converted, false if it already was the current version or is a version 1
+     *         model that is skipped
+     */
+    public static boolean convert(Path file, boolean convertV1) throws IOException, ModelFormatException {
+        RawData data;
+        try (InputStream stream = new FileInputStream(file.toFile());
+                IResource resource = new ResourceAdapter(stream) {}) {
+            data = RawData.loadFrom(resource);
+        }
+        ModelCollector model = new ModelCollector();
+        data.visitBy(model);
+        if (model.version == VERSION) {
+            return false;
+        }
+        if (model.version == 1) {
+            if (!convertV1) {
+                System.out.println(
+                        "Skipping the version 1 model " + file + ", its embedded skeleton and texture locations would"
+                                + " be lost. Pass " + CONVERT_V1_FLAG + " to convert it anyway.");
+                return false;
+            }
+            @SuppressWarnings("deprecation")
+            ISkeletonVisitable skeleton = data.getLegacySkeletonData();
+            String name = file.getFileName().toString();
+            Path skeletonFile = file.resolveSibling(
+                    name.substring(0, name.length() - MODEL_EXTENSION.length()) + SKELETON_EXTENSION);
+            if (Files.exists(skeletonFile)) {
+                System.out.println("Not overwriting the existing skeleton " + skeletonFile);
+            } else {
+                writeAtomically(skeletonFile, writeSkeleton(skeleton, model.modelUUID, model.artist));
+                System.out.println("Wrote the skeleton of " + file + " to " + skeletonFile);
+            }
+            System.out.println(
+                    "The textures of " + file + " are texture slots now: "
+                            + model.materials.keySet().stream().collect(Collectors.joining(", ")));
+        }
+        writeAtomically(file, writeModel(model));
+        System.out.println("Converted " + file + " from version " + model.version + " to " + VERSION);
+        return true;
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream dos, String string) throws IOException {
+        dos.write(string.getBytes(StandardCharsets.UTF_8));
+        dos.writeByte(0);
+    }
+
+    private static void writeHeader(DataOutputStream dos, long magic, UUID uuid, String artist, int version)
+            throws IOException {
+        dos.writeLong(magic);
+        dos.writeLong(uuid.getMostSignificantBits());
+        dos.writeLong(uuid.getLeastSignificantBits());
+        writeString(dos, artist);
+        dos.writeInt(version);
+    }
+
+    private static byte[] writeSkeleton(ISkeletonVisitable skeleton, UUID uuid, String artist) throws IOException {
+        List<BoneCollector> bones = new ArrayList<>();
+        skeleton.visitBy(new ISkeletonVisitor() {
+            @Override
+            public IBoneVisitor visitBone(String name) {
+                BoneCollector bone = new BoneCollector(name);
+                bones.add(bone);
+                return bone;
+            }
+
+            @Override
+            public void visitEnd() {}
+        });
+        boolean isWide = bones.size() > MAX_BONES_V1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bytes);
+        writeHeader(dos, SKELETON_MAGIC, uuid, artist, isWide ? 2 : 1);
+        if (isWide) {
+            dos.writeInt(bones.size());
+        } else {
+            dos.writeByte(bones.size());
+        }
+        for (BoneCollector bone : bones) {
+            writeString(dos, bone.name);
+            dos.writeFloat(bone.rotation.x);
+            dos.writeFloat(bone.rotation.y);
+            dos.writeFloat(bone.rotation.z);
+            dos.writeFloat(bone.rotation.w);
+            dos.writeFloat(bone.offset.x);
+            dos.writeFloat(bone.offset.y);
+            dos.writeFloat(bone.offset.z);
+        }
+        for (BoneCollector bone : bones) {
+            // -1 is written as 0xFF in version 1, its marker for no parent
+            if (isWide) {
+                dos.writeInt(bone.parent);
+            } else {
+                dos.writeByte(bone.parent);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] writeModel(ModelCollector model) throws IOException, ModelFormatException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(dataBytes);
+
+        writeHeader(header, RawData.MAGIC_NUMBER, model.modelUUID, model.artist, VERSION);
+        header.writeInt(model.parts.size());
+        header.writeInt(model.materials.size());
+        for (String material : model.materials.keySet()) {
+            writeString(header, material);
+        }
+        for (PartCollector part : model.parts) {
+            writePart(part, model.materials.get(part.texture), header, data);
+        }
+        int padding = (4 - (header.size() + 1 + 4) % 4) % 4;
+        header.writeByte(padding);
+        header.write(new byte[padding]);
+        header.writeInt(data.size());
+        dataBytes.writeTo(header);
+        return headerBytes.toByteArray();
+    }
+
+    private static void writeSection(
+            DataOutputStream header,
+            DataOutputStream data,
+            int type,
+            int encoding,
+            byte[] section) throws IOException {
+        header.writeByte(type);
+        header.writeByte(encoding);
+        header.writeInt(data.size());
+        header.writeInt(section.length);
+        data.write(section);
+        data.write(new byte[(4 - section.length % 4) % 4]);
+    }
+
+    private static void writePart(PartCollector part, int materialIndex, DataOutputStream header, DataOutputStream data)
+            throws IOException, ModelFormatException {
+        PackedPoints points = part.points.build();
+        int nbrPoints = points.getPointCount();
+        if (nbrPoints > RawDataV3.MAX_POINTS_WIDE) {
+            throw new ModelFormatException("Too many points in part " + part.name + ": " + nbrPoints);
+        }
+        // Normalize the bindings of every cluster, clusters that end up the same are merged
+        int maxBindings = PackedPoints.MAX_BINDINGS;
+        Map<List<Integer>, Integer> clusterIndices = new LinkedHashMap<>();
+        int[] remapped = new int[points.getClusterCount()];
+        for (int c = 0; c < remapped.length; c++) {
+            List<Integer> cluster = normalizeCluster(points, c);
+            remapped[c] = cluster.isEmpty()
+                    ? PackedPoints.NO_CLUSTER
+                    : clusterIndices.computeIfAbsent(cluster, k -> clusterIndices.size());
+        }
+        int nbrClusters = clusterIndices.size();
+        if (nbrClusters > RawDataV3.MAX_POINTS_WIDE) {
+            throw new ModelFormatException("Too many clusters in part " + part.name + ": " + nbrClusters);
+        }
+
+        float[] normals = points.getNormals();
+        float[] texCoords = points.getTexCoords();
+        boolean quantizeNormals = isInRange(normals, -1, 1);
+        boolean quantizeTexCoords = isInRange(texCoords, 0, 1);
+
+        writeString(header, part.name);
+        header.writeInt(materialIndex);
+        header.writeInt(nbrPoints);
+        header.writeInt(part.indexCount);
+        header.writeInt(nbrClusters);
+        header.writeByte(8);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream section = new DataOutputStream(bytes);
+        for (float coord : Arrays.copyOf(points.getCoords(), nbrPoints * 3)) {
+            section.writeFloat(coord);
+        }
+        writeSection(header, data, RawDataV3.SECTION_COORDS, RawDataV3.ENCODING_FLOAT, bytes.toByteArray());
+
+        bytes.reset();
+        for (int i = 0; i < nbrPoints * 3; i++) {
+            if (quantizeNormals) {
+                section.writeByte(Math.round(normals[i] * 127.0F));
+            } else {
+                section.writeFloat(normals[i]);
+            }
+        }
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_NORMALS,
+                quantizeNormals ? RawDataV3.ENCODING_SNORM8 : RawDataV3.ENCODING_FLOAT,
+                bytes.toByteArray());
+
+        bytes.reset();
+        for (int i = 0; i < nbrPoints * 2; i++) {
+            if (quantizeTexCoords) {
+                section.writeShort(Math.round(texCoords[i] * 65535.0F));
+            } else {
+                section.writeFloat(texCoords[i]);
+            }
+        }
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_TEX_COORDS,
+                quantizeTexCoords ? RawDataV3.ENCODING_UNORM16 : RawDataV3.ENCODING_FLOAT,
+                bytes.toByteArray());
+
+        int indicesEncoding = nbrPoints <= 0xFFFF ? RawDataV3.ENCODING_UINT16 : RawDataV3.ENCODING_UINT32;
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_INDICES,
+                indicesEncoding,
+                encodeInts(part.indices, part.indexCount, indicesEncoding));
+
+        // The largest value of the encoding marks points without a cluster
+        int clusterOfEncoding = nbrClusters < 0xFFFF ? RawDataV3.ENCODING_UINT16 : RawDataV3.ENCODING_UINT32;
+        int noCluster = clusterOfEncoding == RawDataV3.ENCODING_UINT16 ? RawDataV3.NO_CLUSTER : -1;
+        int[] clusterOf = Arrays.copyOf(points.getClusterOf(), nbrPoints);
+        for (int i = 0; i < nbrPoints; i++) {
+            int cluster = clusterOf[i] == PackedPoints.NO_CLUSTER ? PackedPoints.NO_CLUSTER : remapped[clusterOf[i]];
+            clusterOf[i] = cluster == PackedPoints.NO_CLUSTER ? noCluster : cluster;
+        }
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_CLUSTER_OF,
+                clusterOfEncoding,
+                encodeInts(clusterOf, nbrPoints, clusterOfEncoding));
+
+        int[] bones = new int[nbrClusters * maxBindings];
+        int maxBone = 0;
+        ByteArrayOutputStream valuesBytes = new ByteArrayOutputStream();
+        DataOutputStream values = new DataOutputStream(valuesBytes);
+        bytes.reset();
+        int c = 0;
+        for (List<Integer> cluster : clusterIndices.keySet()) {
+            // Bones and quantized values alternate
+            int count = cluster.size() / 2;
+            section.writeByte(count);
+            for (int k = 0; k < maxBindings; k++) {
+                int bone = k < count ? cluster.get(2 * k) : 0;
+                bones[c * maxBindings + k] = bone;
+                maxBone = Math.max(maxBone, bone);
+                values.writeShort(k < count ? cluster.get(2 * k + 1) : 0);
+            }
+            c++;
+        }
+        int bonesEncoding = maxBone <= 0xFF
+                ? RawDataV3.ENCODING_UINT8
+                : maxBone <= 0xFFFF ? RawDataV3.ENCODING_UINT16 : RawDataV3.ENCODING_UINT32;
+        writeSection(header, data, RawDataV3.SECTION_CLUSTER_SIZES, RawDataV3.ENCODING_UINT8, bytes.toByteArray());
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_CLUSTER_BONES,
+                bonesEncoding,
+                encodeInts(bones, bones.length, bonesEncoding));
+        writeSection(
+                header,
+                data,
+                RawDataV3.SECTION_CLUSTER_VALUES,
+                RawDataV3.ENCODING_UNORM16,
+                valuesBytes.toByteArray());
+    }
+
+    private static byte[] encodeInts(int[] values, int count, int encoding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream section = new DataOutputStream(bytes);
+        for (int i = 0; i < count; i++) {
+            switch (encoding) {
+                case RawDataV3.ENCODING_UINT8:
+                    section.writeByte(values[i]);
+                    break;
+                case RawDataV3.ENCODING_UINT16:
+                    section.writeShort(values[i]);
+                    break;
+                default:
+                    section.writeInt(values[i]);
+                    break;
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean isInRange(float[] values, float min, float max) {
+        for (float value : values) {
+            if (!(value >= min && value <= max)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops bindings without positive value, sorts the rest by bone and normalizes and quantizes their values. The
+     * quantized values sum up to exactly 0xFFFF.
+     *
+     * @return bones and quantized values, alternating. Empty if the cluster is static.
+     */
+    private static List<Integer> normalizeCluster(PackedPoints points, int cluster) {
+        Map<Integer, Float> values = new HashMap<>();
+        float sum = 0;
+        for (int k = 0; k < points.getClusterBindingCount(cluster); k++) {
+            float value = points.getClusterBindingValue(cluster, k);
+            if (value > 0) {
+                values.merge(points.getClusterBoneIndex(cluster, k), value, Float::sum);
+                sum += value;
+            }
+        }
+        List<Integer> bones = new ArrayList<>(values.keySet());
+        bones.sort(null);
+        List<Integer> normalized = new ArrayList<>();
+        int remaining = 0xFFFF;
+        for (int i = 0; i < bones.size(); i++) {
+            int bone = bones.get(i);
+            int quantized = i == bones.size() - 1 ? remaining : Math.round(values.get(bone) / sum * 0xFFFF);
+            quantized = Math.min(quantized, remaining);
+            remaining -= quantized;
+            normalized.add(bone);
+            normalized.add(quantized);
+        }
+        return normalized;
+    }
+
+    private static class ModelCollector implements IModelVisitor {
+        private int version;
+        private UUID modelUUID;
+        private String artist;
+        private final List<PartCollector> parts = new ArrayList<>();
+        /**
+         * The index of each material, in order
+         */
+        private final Map<String, Integer> materials = new LinkedHashMap<>();
+
+        @Override
+        public void visitVersion(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public void visitModelUUID(UUID uuid) {
+            this.modelUUID = uuid;
+        }
+
+        @Override
+        public void visitArtist(String artist) {
+            this.artist = artist;
+        }
+
+        @Override
+        public IPartVisitor visitPart(String name) {
+            PartCollector part = new PartCollector(name, materials);
+            parts.add(part);
+            return part;
+        }
+
+        @Override
+        public void visitEnd() {}
+    }
+
+    private static class PartCollector implements IPartVisitor {
+        private final String name;
+        private final Map<String, Integer> materials;
+        private final PackedPoints.Builder points = new PackedPoints.Builder();
+        private int[] indices = new int[0];
+        private int indexCount;
+        private String texture;
+
+        public PartCollector(String name, Map<String, Integer> materials) {
+            this.name = name;
+            this.materials = materials;
+        }
+
+        @Override
+        public void visitTesselationPoint(TesselationPoint point) {
+            points.add(point);
+        }
+
+        @Override
+        public void visitPackedPoints(PackedPoints points) {
+            this.points.add(points);
+        }
+
+        @Override
+        public void visitFace(short tess1, short tess2, short tess3) {
+            visitFaces(new short[] { tess1, tess2, tess3 });
+        }
+
+        @Override
+        public void visitFaces(short[] tessOrder) {
+            int[] wide = new int[tessOrder.length];
+            for (int i = 0; i < tessOrder.length; i++) {
+                wide[i] = Short.toUnsignedInt(tessOrder[i]);
+            }
+            visitFaces(wide);
+        }
+
+        @Override
+        public void visitFaces(int[] tessOrder) {
+            if (indices.length - indexCount < tessOrder.length) {
+                indices = Arrays.copyOf(indices, Math.max(2 * indices.length, indexCount + tessOrder.length));
+            }
+            System.arraycopy(tessOrder, 0, indices, indexCount, tessOrder.length);
+            indexCount += tessOrder.length;
+        }
+
+        @Override
+        public IMaterialVisitor visitTexture() {
+            return new IMaterialVisitor() {
+                @Override
+                public void visitTexture(String textureName) {
+                    texture = textureName;
+                    materials.putIfAbsent(textureName, materials.size());
+                }
+
+                @Override
+                public void visitEnd() {}
+            };
+        }
+
+        @Override
+        public void visitEnd() {}
+    }
+
+    private static class BoneCollector implements IBoneVisitor {
+        private final String name;
+        private int parent = -1;
+        private Vector3f offset = new Vector3f();
+        private Quat4f rotation = new Quat4f(0, 0, 0, 1);
+
+        public BoneCollector(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void visitParent(byte parentIndex) {
+            visitParent(Byte.toUnsignedInt(parentIndex));
+        }
+
+        @Override
+        public void visitParent(int parentIndex) {
+            this.parent = parentIndex;
+        }
+
+        @Override
+        public void visitLocalOffset(Vector3f headPosition) {
+            this.offset = new Vector3f(headPosition);
+        }
+
+        @Override
+        public void visitLocalRotation(Quat4f rotation) {
+            this.rotation = new Quat4f(rotation);
+        }
+
+        @Override
+        public void visitEnd() {}
+    }
+}
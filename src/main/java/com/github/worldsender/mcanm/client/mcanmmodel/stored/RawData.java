@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.UUID;
@@ -64,11 +64,18 @@ public class RawData implements IModelVisitable {
         });
     }
 
-    private static RawData loadFrom(IResource resource) throws ModelFormatException {
+    /**
+     * Loads the data from the resource without caching it. Prefer {@link #retrieveFrom(IResource)}.
+     *
+     * @param resource the resource to load from
+     * @return the data loaded
+     * @throws ModelFormatException if the resource can't be read or is not a model
+     */
+    public static RawData loadFrom(IResource resource) throws ModelFormatException {
         RawData data = new RawData();
-        DataInputStream dis = resource.getInputStream();
 
         try {
+            DataInput dis = resource.readContent();
             long foundMagic = dis.readLong();
             if (foundMagic != MAGIC_NUMBER) {
                 throw new ModelFormatException(
@@ -101,6 +108,10 @@ public class RawData implements IModelVisitable {
                 return RawDataV1::loadFrom;
             case 2:
                 return RawDataV2::loadFrom;
+            case 3:
+                return RawDataV3::loadFrom;
+            case 4:
+                return RawDataV3::loadWideFrom;
             default:
                 break;
         }
@@ -141,6 +152,6 @@ public class RawData implements IModelVisitable {
     }
 
     private interface VersionizedModelLoader {
-        IVersionSpecificData loadFrom(DataInputStream dis) throws IOException, ModelFormatException;
+        IVersionSpecificData loadFrom(DataInput dis) throws IOException, ModelFormatException;
     }
 }
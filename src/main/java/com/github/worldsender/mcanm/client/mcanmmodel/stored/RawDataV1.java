@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
@@ -12,7 +12,7 @@ import com.github.worldsender.mcanm.client.mcanmmodel.stored.parts.RawBone;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IMaterialVisitor;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitor;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IPartVisitor;
-import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
 import com.github.worldsender.mcanm.common.Utils;
 import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 import com.github.worldsender.mcanm.common.skeleton.visitor.IBoneVisitor;
@@ -39,7 +39,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
         this.bones = bones;
     }
 
-    public static final RawDataV1 loadFrom(DataInputStream di) throws IOException, ModelFormatException {
+    public static final RawDataV1 loadFrom(DataInput di) throws IOException, ModelFormatException {
         // Read the header
         HeaderV1 header = new HeaderV1();
         int nbrParts = di.readUnsignedByte();
@@ -70,7 +70,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
         return new RawDataV1(parts, bones);
     }
 
-    private static void readBoneParents(DataInputStream di, RawBone[] bones) throws IOException {
+    private static void readBoneParents(DataInput di, RawBone[] bones) throws IOException {
         int nbrBones = bones.length;
         for (RawBone bone : bones) {
             int parentIndex = di.readUnsignedByte();
@@ -78,11 +78,11 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
                 throw new ModelFormatException(
                         String.format("ParentIndex (%d) has to be smaller than nbrBones (%d).", parentIndex, nbrBones));
             }
-            bone.parent = (byte) parentIndex;
+            bone.parent = parentIndex == 255 ? -1 : parentIndex;
         }
     }
 
-    private static ModelPartV1 readPartFrom(DataInputStream di, HeaderV1 header) throws IOException {
+    private static ModelPartV1 readPartFrom(DataInput di, HeaderV1 header) throws IOException {
         ModelPartV1 mp = new ModelPartV1();
         // Read "header"
         int nbrPoints = di.readUnsignedShort();
@@ -92,9 +92,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
         // Read Material
         Material material = Material.readFrom(di);
         // Read points
-        TesselationPoint[] vertexArray = new TesselationPoint[nbrPoints];
-        for (int i = 0; i < nbrPoints; vertexArray[i++] = TesselationPoint.readFrom(di))
-            ;
+        PackedPoints points = PackedPoints.readFrom(di, nbrPoints);
         // Read indices
         short[] indexArray = new short[nbrIndices];
         for (int i = 0; i < nbrIndices; ++i) {
@@ -107,7 +105,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
         // Apply attributes
         mp.name = name;
         mp.material = material;
-        mp.points = vertexArray;
+        mp.points = points;
         mp.indices = indexArray;
         return mp;
     }
@@ -121,7 +119,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
     public void visitBy(IModelVisitor visitor) {
         for (ModelPartV1 part : parts) {
             IPartVisitor partVisitor = visitor.visitPart(part.name);
-            partVisitor.visitTesselationPoints(part.points);
+            partVisitor.visitPackedPoints(part.points);
             partVisitor.visitFaces(part.indices);
             {
                 IMaterialVisitor matVisitor = partVisitor.visitTexture();
@@ -141,7 +139,7 @@ public class RawDataV1 implements IVersionSpecificData, ISkeletonVisitable {
         for (int i = 0; i < bones.length; i++) {
             IBoneVisitor boneVisitor = boneVisitors[i];
             RawBone bone = bones[i];
-            if (bone.parent != 0xFF) {
+            if (bone.parent != -1) {
                 boneVisitor.visitParent(bone.parent);
             }
             boneVisitor.visitLocalOffset(bone.offset);
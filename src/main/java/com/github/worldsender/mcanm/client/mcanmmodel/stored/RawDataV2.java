@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.worldsender.mcanm.client.mcanmmodel.stored.parts.Material;
@@ -19,7 +19,7 @@ public class RawDataV2 implements IVersionSpecificData {
     private ModelPartV2[] parts;
     private Material[] mats;
 
-    public static final RawDataV2 loadFrom(DataInputStream dis) throws IOException, ModelFormatException {
+    public static final RawDataV2 loadFrom(DataInput dis) throws IOException, ModelFormatException {
         RawDataV2 data = new RawDataV2();
         int nbrParts = dis.readUnsignedByte();
         int nbrMaterials = dis.readUnsignedByte();
@@ -44,7 +44,7 @@ public class RawDataV2 implements IVersionSpecificData {
     public void visitBy(IModelVisitor visitor) {
         for (ModelPartV2 part : parts) {
             IPartVisitor partVisitor = visitor.visitPart(part.name);
-            partVisitor.visitTesselationPoints(part.points);
+            partVisitor.visitPackedPoints(part.points);
             partVisitor.visitFaces(part.indices);
             {
                 IMaterialVisitor matVisitor = partVisitor.visitTexture();
@@ -0,0 +1,477 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.stored;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.github.worldsender.mcanm.client.mcanmmodel.stored.parts.Material;
+import com.github.worldsender.mcanm.client.mcanmmodel.stored.parts.ModelPartV2;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IMaterialVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IModelVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.IPartVisitor;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
+import com.github.worldsender.mcanm.common.Utils;
+import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
+import com.github.worldsender.mcanm.common.util.ByteBufferDataInput;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Version 3 of the model format. The content of a part is the same as in version 2, but the vertex attributes are
+ * stored in blocks, one array after the other, instead of point by point. The blocks can be copied into the runtime
+ * arrays in bulk. The format is, following the common header:
+ *
+ * <pre>
+ * u8       nbrParts
+ * u8       nbrMaterials
+ * string   materials[nbrMaterials]
+ * part     parts[nbrParts]
+ *     string   name
+ *     u8       materialIndex
+ *     int      nbrPoints      at most 0xFFFF
+ *     int      nbrIndices     three per face
+ *     int      nbrClusters    at most 0xFFFF
+ *     u8       nbrSections
+ *     section  sections[nbrSections]
+ *         u8       type       see SECTION_*
+ *         u8       encoding   see ENCODING_*
+ *         int      offset     into the data block, a multiple of 4
+ *         int      length     in bytes
+ * u8       nbrPadding     zero bytes, so that the data block starts at a multiple of 4 in the file
+ * u8       padding[nbrPadding]
+ * int      dataLength
+ * u8       data[dataLength]
+ * </pre>
+ *
+ * The bone bindings of a part are stored per cluster, points with the same bindings share one, see
+ * {@link PackedPoints}. The bindings of a cluster are sorted by bone and normalized to sum up to one when writing, so
+ * nothing has to be computed when loading. Sections of unknown type are skipped.<br>
+ * Version 4 lifts the limits on the number of parts, points, clusters and bones. The number of parts and materials
+ * and the material index of a part are ints, and the number of points and clusters is only limited by the size of
+ * the data block. The sections holding indices, clusters and bones can also be encoded as {@link #ENCODING_UINT16}
+ * or {@link #ENCODING_UINT32}. Writers should use the smallest encoding that fits, so small models stay as compact as
+ * in version 3.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public class RawDataV3 implements IVersionSpecificData {
+    /**
+     * The coordinates of the points, 3 values per point. Encoded as {@link #ENCODING_FLOAT}.
+     */
+    public static final int SECTION_COORDS = 1;
+    /**
+     * The normals of the points, 3 values per point. Encoded as {@link #ENCODING_FLOAT} or {@link #ENCODING_SNORM8}.
+     */
+    public static final int SECTION_NORMALS = 2;
+    /**
+     * The texture coordinates of the points, 2 values per point. Encoded as {@link #ENCODING_FLOAT} or
+     * {@link #ENCODING_UNORM16}.
+     */
+    public static final int SECTION_TEX_COORDS = 3;
+    /**
+     * The indices of the faces. Encoded as {@link #ENCODING_UINT16}.
+     */
+    public static final int SECTION_INDICES = 4;
+    /**
+     * The cluster of each point. Encoded as {@link #ENCODING_UINT16}, the largest value of the encoding for points
+     * without bindings.
+     */
+    public static final int SECTION_CLUSTER_OF = 5;
+    /**
+     * The number of bindings of each cluster. Encoded as {@link #ENCODING_UINT8}.
+     */
+    public static final int SECTION_CLUSTER_SIZES = 6;
+    /**
+     * The bone indices of the bindings of the clusters, {@link PackedPoints#MAX_BINDINGS} per cluster. Encoded as
+     * {@link #ENCODING_UINT8}.
+     */
+    public static final int SECTION_CLUSTER_BONES = 7;
+    /**
+     * The values of the bindings of the clusters, {@link PackedPoints#MAX_BINDINGS} per cluster. Encoded as
+     * {@link #ENCODING_FLOAT} or {@link #ENCODING_UNORM16}.
+     */
+    public static final int SECTION_CLUSTER_VALUES = 8;
+
+    public static final int ENCODING_FLOAT = 0;
+    /**
+     * A signed byte, mapping [-127, 127] to [-1, 1]
+     */
+    public static final int ENCODING_SNORM8 = 1;
+    /**
+     * An unsigned short, mapping [0, 0xFFFF] to [0, 1]
+     */
+    public static final int ENCODING_UNORM16 = 2;
+    public static final int ENCODING_UINT8 = 3;
+    public static final int ENCODING_UINT16 = 4;
+    /**
+     * Only in version 4
+     */
+    public static final int ENCODING_UINT32 = 5;
+
+    public static final int MAX_POINTS = 0xFFFF;
+    /**
+     * The cluster of points without bindings, when stored as {@link #ENCODING_UINT16}
+     */
+    public static final int NO_CLUSTER = 0xFFFF;
+    /**
+     * The number of points and clusters of version 4 is limited, so that the size of every section fits into an int
+     */
+    public static final int MAX_POINTS_WIDE = Integer.MAX_VALUE / 16;
+
+    private final int version;
+    private ModelPartV2[] parts;
+    private Material[] mats;
+
+    private RawDataV3(int version) {
+        this.version = version;
+    }
+
+    public static final RawDataV3 loadFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, 3);
+    }
+
+    /**
+     * Loads version 4 of the format.
+     */
+    public static final RawDataV3 loadWideFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, 4);
+    }
+
+    private static RawDataV3 loadFrom(DataInput dis, int version) throws IOException, ModelFormatException {
+        RawDataV3 data = new RawDataV3(version);
+        boolean isWide = version >= 4;
+        int nbrParts = isWide ? dis.readInt() : dis.readUnsignedByte();
+        int nbrMaterials = isWide ? dis.readInt() : dis.readUnsignedByte();
+        if (nbrParts < 0 || nbrMaterials < 0) {
+            throw new ModelFormatException("Negative number of parts or materials");
+        }
+        // Every part and material takes up at least one byte, don't allocate for more than there could be
+        if (dis instanceof ByteBufferDataInput
+                && (long) nbrParts + nbrMaterials > ((ByteBufferDataInput) dis).remaining()) {
+            throw new ModelFormatException("More parts and materials than the file could hold");
+        }
+
+        data.parts = new ModelPartV2[nbrParts];
+        data.mats = new Material[nbrMaterials];
+        for (int i = 0; i < nbrMaterials; i++) {
+            data.mats[i] = Material.readFrom(dis);
+        }
+        PartHeader[] headers = new PartHeader[nbrParts];
+        for (int i = 0; i < nbrParts; i++) {
+            headers[i] = PartHeader.readFrom(dis, nbrMaterials, isWide);
+        }
+        dis.skipBytes(dis.readUnsignedByte());
+        ByteBuffer block = readDataBlock(dis);
+        for (int i = 0; i < nbrParts; i++) {
+            data.parts[i] = headers[i].readPart(block);
+        }
+        return data;
+    }
+
+    private static ByteBuffer readDataBlock(DataInput dis) throws IOException {
+        int dataLength = dis.readInt();
+        if (dataLength < 0) {
+            throw new ModelFormatException("Negative length of the data block: " + dataLength);
+        }
+        if (dis instanceof ByteBufferDataInput) {
+            // Only read from while loading, no need to copy it
+            return ((ByteBufferDataInput) dis).readSlice(dataLength);
+        }
+        byte[] bytes = new byte[dataLength];
+        dis.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public void visitBy(IModelVisitor visitor) {
+        for (ModelPartV2 part : parts) {
+            IPartVisitor partVisitor = visitor.visitPart(part.name);
+            partVisitor.visitPackedPoints(part.points);
+            if (part.wideIndices != null) {
+                partVisitor.visitFaces(part.wideIndices);
+            } else {
+                partVisitor.visitFaces(part.indices);
+            }
+            {
+                IMaterialVisitor matVisitor = partVisitor.visitTexture();
+                matVisitor.visitTexture(mats[part.materialIndex].resLocationRaw);
+                matVisitor.visitEnd();
+            }
+            partVisitor.visitEnd();
+        }
+    }
+
+    private static class Section {
+        public int encoding;
+        public int offset;
+        public int length;
+    }
+
+    private static class PartHeader {
+        private static final int SECTION_TYPES = SECTION_CLUSTER_VALUES + 1;
+
+        private boolean isWide;
+        private String name;
+        private int materialIndex;
+        private int nbrPoints;
+        private int nbrIndices;
+        private int nbrClusters;
+        private final Section[] sections = new Section[SECTION_TYPES];
+
+        public static PartHeader readFrom(DataInput dis, int nbrMaterials, boolean isWide) throws IOException {
+            PartHeader header = new PartHeader();
+            header.isWide = isWide;
+            header.name = Utils.readString(dis);
+            header.materialIndex = isWide ? dis.readInt() : dis.readUnsignedByte();
+            if (header.materialIndex < 0 || header.materialIndex >= nbrMaterials) {
+                throw new ModelFormatException(
+                        String.format(
+                                "Material (%d) has to be smaller than nbrMaterials (%d).",
+                                header.materialIndex,
+                                nbrMaterials));
+            }
+            header.nbrPoints = dis.readInt();
+            header.nbrIndices = dis.readInt();
+            header.nbrClusters = dis.readInt();
+            int maxPoints = isWide ? MAX_POINTS_WIDE : MAX_POINTS;
+            if (header.nbrPoints < 0 || header.nbrPoints > maxPoints) {
+                throw new ModelFormatException("Number of points out of range: " + header.nbrPoints);
+            }
+            if (header.nbrIndices < 0 || header.nbrIndices % 3 != 0 || header.nbrIndices > MAX_POINTS_WIDE) {
+                throw new ModelFormatException("Number of indices must be a multiple of 3: " + header.nbrIndices);
+            }
+            int maxClusters = isWide ? MAX_POINTS_WIDE : NO_CLUSTER - 1;
+            if (header.nbrClusters < 0 || header.nbrClusters > maxClusters) {
+                throw new ModelFormatException("Number of clusters out of range: " + header.nbrClusters);
+            }
+            int nbrSections = dis.readUnsignedByte();
+            for (int i = 0; i < nbrSections; i++) {
+                int type = dis.readUnsignedByte();
+                Section section = new Section();
+                section.encoding = dis.readUnsignedByte();
+                section.offset = dis.readInt();
+                section.length = dis.readInt();
+                if (type >= SECTION_TYPES || type == 0) {
+                    // Unknown section, from a later revision
+                    continue;
+                }
+                if (header.sections[type] != null) {
+                    throw new ModelFormatException("Two sections of type " + type + " in part " + header.name);
+                }
+                header.sections[type] = section;
+            }
+            return header;
+        }
+
+        /**
+         * Checks the section before anything is allocated for it, so that corrupt counts can't exhaust the memory.
+         *
+         * @return a view of the bytes of the section, checked to hold the number of bytes given
+         */
+        private ByteBuffer getSection(ByteBuffer block, int type, long byteCount) throws ModelFormatException {
+            if (byteCount > block.limit()) {
+                throw new ModelFormatException(
+                        String.format(
+                                "Section %d of part %s needs %d bytes, the data block only has %d.",
+                                type,
+                                name,
+                                byteCount,
+                                block.limit()));
+            }
+            Section section = sections[type];
+            if (section == null) {
+                if (byteCount == 0) {
+                    return ByteBuffer.allocate(0);
+                }
+                throw new ModelFormatException("Missing section " + type + " in part " + name);
+            }
+            if (section.offset < 0 || section.length < byteCount || section.offset > block.limit() - section.length) {
+                throw new ModelFormatException("Section " + type + " of part " + name + " out of bounds");
+            }
+            ByteBuffer view = block.duplicate();
+            view.limit(section.offset + section.length).position(section.offset);
+            return view.slice().order(ByteOrder.BIG_ENDIAN);
+        }
+
+        private int getEncoding(int type, int... allowed) throws ModelFormatException {
+            int encoding = sections[type] == null ? allowed[0] : sections[type].encoding;
+            for (int candidate : allowed) {
+                if (encoding == candidate) {
+                    return encoding;
+                }
+            }
+            throw new ModelFormatException("Unknown encoding " + encoding + " of section " + type + " in " + name);
+        }
+
+        private float[] readFloats(ByteBuffer block, int type, int count, int encoding) throws ModelFormatException {
+            float[] values;
+            switch (encoding) {
+                case ENCODING_FLOAT: {
+                    ByteBuffer floats = getSection(block, type, count * 4L);
+                    values = new float[count];
+                    floats.asFloatBuffer().get(values);
+                    break;
+                }
+                case ENCODING_SNORM8: {
+                    ByteBuffer bytes = getSection(block, type, count);
+                    values = new float[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = Math.max(bytes.get(i) / 127.0F, -1.0F);
+                    }
+                    break;
+                }
+                case ENCODING_UNORM16: {
+                    ByteBuffer shorts = getSection(block, type, count * 2L);
+                    values = new float[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = Short.toUnsignedInt(shorts.getShort(i * 2)) / 65535.0F;
+                    }
+                    break;
+                }
+                default:
+                    throw new ModelFormatException("Unknown encoding " + encoding);
+            }
+            return values;
+        }
+
+        /**
+         * Reads unsigned integers. Values of {@link #ENCODING_UINT32} larger than {@link Integer#MAX_VALUE} are read as
+         * negative numbers.
+         */
+        private int[] readInts(ByteBuffer block, int type, int count, int encoding) throws ModelFormatException {
+            int[] values;
+            switch (encoding) {
+                case ENCODING_UINT8: {
+                    ByteBuffer bytes = getSection(block, type, count);
+                    values = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = Byte.toUnsignedInt(bytes.get(i));
+                    }
+                    break;
+                }
+                case ENCODING_UINT16: {
+                    ByteBuffer shorts = getSection(block, type, count * 2L);
+                    values = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = Short.toUnsignedInt(shorts.getShort(i * 2));
+                    }
+                    break;
+                }
+                case ENCODING_UINT32: {
+                    ByteBuffer ints = getSection(block, type, count * 4L);
+                    values = new int[count];
+                    ints.asIntBuffer().get(values);
+                    break;
+                }
+                default:
+                    throw new ModelFormatException("Unknown encoding " + encoding);
+            }
+            return values;
+        }
+
+        /**
+         * @return the encodings allowed for a section of integers, the wider ones only in version 4
+         */
+        private int[] intEncodings(int narrowest) {
+            if (!isWide) {
+                return new int[] { narrowest };
+            }
+            return narrowest == ENCODING_UINT8
+                    ? new int[] { ENCODING_UINT8, ENCODING_UINT16, ENCODING_UINT32 }
+                    : new int[] { ENCODING_UINT16, ENCODING_UINT32 };
+        }
+
+        private void checkIndex(int index) throws ModelFormatException {
+            if (index < 0 || index >= nbrPoints) {
+                throw new ModelFormatException(
+                        String.format(
+                                "Vertexindex (%d) has to be smaller than nbrPoints (%d).",
+                                Integer.toUnsignedLong(index),
+                                nbrPoints));
+            }
+        }
+
+        public ModelPartV2 readPart(ByteBuffer block) throws ModelFormatException {
+            int maxBindings = PackedPoints.MAX_BINDINGS;
+            float[] coords = readFloats(
+                    block,
+                    SECTION_COORDS,
+                    nbrPoints * 3,
+                    getEncoding(SECTION_COORDS, ENCODING_FLOAT));
+            float[] normals = readFloats(
+                    block,
+                    SECTION_NORMALS,
+                    nbrPoints * 3,
+                    getEncoding(SECTION_NORMALS, ENCODING_SNORM8, ENCODING_FLOAT));
+            float[] texCoords = readFloats(
+                    block,
+                    SECTION_TEX_COORDS,
+                    nbrPoints * 2,
+                    getEncoding(SECTION_TEX_COORDS, ENCODING_UNORM16, ENCODING_FLOAT));
+            float[] clusterValues = readFloats(
+                    block,
+                    SECTION_CLUSTER_VALUES,
+                    nbrClusters * maxBindings,
+                    getEncoding(SECTION_CLUSTER_VALUES, ENCODING_UNORM16, ENCODING_FLOAT));
+
+            int indicesEncoding = getEncoding(SECTION_INDICES, intEncodings(ENCODING_UINT16));
+            short[] indices = null;
+            int[] wideIndices = null;
+            if (indicesEncoding == ENCODING_UINT16) {
+                ByteBuffer shorts = getSection(block, SECTION_INDICES, nbrIndices * 2L);
+                indices = new short[nbrIndices];
+                shorts.asShortBuffer().get(indices);
+                for (short index : indices) {
+                    checkIndex(Short.toUnsignedInt(index));
+                }
+            } else {
+                wideIndices = readInts(block, SECTION_INDICES, nbrIndices, indicesEncoding);
+                for (int index : wideIndices) {
+                    checkIndex(index);
+                }
+            }
+
+            int clusterOfEncoding = getEncoding(SECTION_CLUSTER_OF, intEncodings(ENCODING_UINT16));
+            int[] clusterOf = readInts(block, SECTION_CLUSTER_OF, nbrPoints, clusterOfEncoding);
+            if (clusterOfEncoding == ENCODING_UINT16) {
+                for (int i = 0; i < nbrPoints; i++) {
+                    if (clusterOf[i] == NO_CLUSTER) {
+                        clusterOf[i] = PackedPoints.NO_CLUSTER;
+                    }
+                }
+            }
+            // 0xFFFFFFFF, the marker of UINT32, already is read as PackedPoints.NO_CLUSTER
+            getEncoding(SECTION_CLUSTER_SIZES, ENCODING_UINT8);
+            ByteBuffer sizes = getSection(block, SECTION_CLUSTER_SIZES, nbrClusters);
+            byte[] clusterSizes = new byte[nbrClusters];
+            sizes.get(clusterSizes);
+            int[] clusterBones = readInts(
+                    block,
+                    SECTION_CLUSTER_BONES,
+                    nbrClusters * maxBindings,
+                    getEncoding(SECTION_CLUSTER_BONES, intEncodings(ENCODING_UINT8)));
+            for (int bone : clusterBones) {
+                if (bone < 0) {
+                    throw new ModelFormatException("Bone index out of range in part " + name);
+                }
+            }
+
+            ModelPartV2 part = new ModelPartV2();
+            part.name = name;
+            part.materialIndex = materialIndex;
+            part.indices = indices;
+            part.wideIndices = wideIndices;
+            part.points = PackedPoints
+                    .wrap(coords, normals, texCoords, clusterOf, clusterSizes, clusterBones, clusterValues);
+            return part;
+        }
+    }
+}
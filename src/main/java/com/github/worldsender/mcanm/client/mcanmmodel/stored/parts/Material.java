@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.worldsender.mcanm.common.Utils;
@@ -12,7 +12,7 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 public class Material {
     public String resLocationRaw;
 
-    public static Material readFrom(DataInputStream di) throws IOException {
+    public static Material readFrom(DataInput di) throws IOException {
         Material tex = new Material();
         tex.resLocationRaw = Utils.readString(di);
         return tex;
@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored.parts;
 
-import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -9,11 +9,11 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 public class ModelPartV1 {
     public String name;
     /**
-     * All available {@link TesselationPoint}s in this part of the model
+     * All available points in this part of the model
      */
-    public TesselationPoint[] points;
+    public PackedPoints points;
     /**
-     * The array to store the order of the {@link TesselationPoint}s. To be interpreted as unsigned.
+     * The array to store the order of the points. To be interpreted as unsigned.
      */
     public short[] indices;
     /**
@@ -1,8 +1,9 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
+import com.github.worldsender.mcanm.client.mcanmmodel.visitor.PackedPoints;
 import com.github.worldsender.mcanm.client.mcanmmodel.visitor.TesselationPoint;
 import com.github.worldsender.mcanm.common.Utils;
 
@@ -13,29 +14,30 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 public class ModelPartV2 {
     public String name;
     /**
-     * All available {@link TesselationPoint}s in this part of the model
+     * All available {@link TesselationPoint}s in this part of the model, packed
      */
-    public TesselationPoint[] points;
+    public PackedPoints points;
     /**
      * The array to store the order of the {@link TesselationPoint}s. To be interpreted as unsigned.
      */
     public short[] indices;
+    /**
+     * The order of the points for parts with more than 0xFFFF points, null otherwise. {@link #indices} is null then.
+     */
+    public int[] wideIndices;
     /**
      * The materialIndex index part of the model uses (unsigned byte)
      */
     public int materialIndex;
 
-    public static ModelPartV2 readFrom(DataInputStream dis) throws IOException {
+    public static ModelPartV2 readFrom(DataInput dis) throws IOException {
         ModelPartV2 data = new ModelPartV2();
         int nbrPoints = dis.readUnsignedShort();
         int nbrIndices = dis.readUnsignedShort() * 3;
-        data.points = new TesselationPoint[nbrPoints];
         data.indices = new short[nbrIndices];
         data.name = Utils.readString(dis);
         data.materialIndex = dis.readUnsignedByte();
-        for (int i = 0; i < nbrPoints; i++) {
-            data.points[i] = TesselationPoint.readFrom(dis);
-        }
+        data.points = PackedPoints.readFrom(dis, nbrPoints);
         for (int i = 0; i < nbrIndices; i++) {
             data.indices[i] = dis.readShort();
         }
@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.stored.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.worldsender.mcanm.common.Utils;
@@ -16,11 +16,11 @@ public class RawBone {
     public Quat4f rotation;
     public Vector3f offset;
     /**
-     * Parent of this bone as array index. A value of 0xFF means no parent
+     * Parent of this bone as array index. A value of -1 means no parent
      */
-    public byte parent;
+    public int parent = -1;
 
-    public static RawBone readBoneFrom(DataInputStream dis) throws IOException {
+    public static RawBone readBoneFrom(DataInput dis) throws IOException {
         RawBone bone = new RawBone();
         String name = Utils.readString(dis);
         Quat4f quat = Utils.readQuat(dis);
@@ -1,41 +1,28 @@
 package com.github.worldsender.mcanm.client.mcanmmodel.visitor;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
-import java.util.Arrays;
-
-import com.github.worldsender.mcanm.client.mcanmmodel.stored.RawDataV1;
-import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
 @OnlyIn(Dist.CLIENT)
 public class BoneBinding {
-    /**
-     * To be interpreted as unsigned
-     */
-    public byte boneIndex;
+    public int boneIndex;
     public float bindingValue;
 
-    public static BoneBinding[] readMultipleFrom(DataInputStream di) throws IOException {
-        BoneBinding[] bindings = new BoneBinding[RawDataV1.MAX_NBR_BONEBINDINGS];
-        int bindIndex;
-        int i = 0;
-        while (i < RawDataV1.MAX_NBR_BONEBINDINGS && (bindIndex = di.readUnsignedByte()) != 0xFF) {
-            BoneBinding binding = new BoneBinding();
-            // Read strength of binding
-            float bindingValue = di.readFloat();
-            if (Math.abs(bindingValue) > 100.0F || bindingValue < 0)
-                throw new ModelFormatException(
-                        String.format(
-                                "Value for binding seems out of range: %f (expected to be in [0, 100]",
-                                bindingValue));
-            // Apply attributes
-            binding.boneIndex = (byte) bindIndex;
-            binding.bindingValue = bindingValue;
-            bindings[i++] = binding;
+    /**
+     * Reads the bindings of a single point, see {@link PackedPoints#readBindings(DataInput, int[], float[])}.
+     */
+    public static BoneBinding[] readMultipleFrom(DataInput di) throws IOException {
+        int[] bones = new int[PackedPoints.MAX_BINDINGS];
+        float[] values = new float[PackedPoints.MAX_BINDINGS];
+        BoneBinding[] bindings = new BoneBinding[PackedPoints.readBindings(di, bones, values)];
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i] = new BoneBinding();
+            bindings[i].boneIndex = bones[i];
+            bindings[i].bindingValue = values[i];
         }
-        return Arrays.copyOf(bindings, i);
+        return bindings;
     }
 }
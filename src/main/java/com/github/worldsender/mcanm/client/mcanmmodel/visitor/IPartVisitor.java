@@ -20,8 +20,21 @@ public interface IPartVisitor {
     }
 
     /**
-     * Visit a face. Parameters are zero-based indices in the order of visitation of the tesselation points. Tesselation
-     * points might be visited before or afterwards.
+     * Visit multiple tesselation points at once, in bulk. Visitors that can consume the arrays directly should
+     * override this, so that no object is created per point. By default, every point is visited on its own.
+     *
+     * @param points the points, don't modify
+     * @see #visitTesselationPoint(TesselationPoint)
+     */
+    default void visitPackedPoints(PackedPoints points) {
+        for (int i = 0; i < points.getPointCount(); i++) {
+            visitTesselationPoint(points.getPoint(i));
+        }
+    }
+
+    /**
+     * Visit a face. Parameters are zero-based indices in the order of visitation of the tesselation points, to be
+     * interpreted as unsigned. Tesselation points might be visited before or afterwards.
      *
      * @param tess1
      * @param tess2
@@ -41,8 +54,27 @@ public interface IPartVisitor {
         }
         int maxI = tessOrder.length / 3;
         for (int i = 0; i < maxI; i++) {
-            visitFace(tessOrder[i], tessOrder[i + 1], tessOrder[i + 2]);
+            visitFace(tessOrder[3 * i], tessOrder[3 * i + 1], tessOrder[3 * i + 2]);
+        }
+    }
+
+    /**
+     * Visit multiple faces of a part with more than 0xFFFF points at once. Visitors that support such parts have to
+     * override this. By default, the faces are visited as shorts if all indices fit.
+     *
+     * @param tessOrder int[]#length must be divisible by 3
+     * @throws IllegalArgumentException if an index doesn't fit into an unsigned short
+     * @see #visitFaces(short[])
+     */
+    default void visitFaces(int[] tessOrder) {
+        short[] narrowed = new short[tessOrder.length];
+        for (int i = 0; i < tessOrder.length; i++) {
+            if (tessOrder[i] < 0 || tessOrder[i] > 0xFFFF) {
+                throw new IllegalArgumentException("Index " + tessOrder[i] + " out of range for this visitor");
+            }
+            narrowed[i] = (short) tessOrder[i];
         }
+        visitFaces(narrowed);
     }
 
     IMaterialVisitor visitTexture();
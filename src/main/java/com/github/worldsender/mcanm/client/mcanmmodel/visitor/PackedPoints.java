@@ -0,0 +1,466 @@
+package com.github.worldsender.mcanm.client.mcanmmodel.visitor;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.worldsender.mcanm.client.mcanmmodel.stored.RawDataV1;
+import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
+import com.github.worldsender.mcanm.common.util.math.Vector2f;
+import com.github.worldsender.mcanm.common.util.math.Vector3f;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Multiple {@link TesselationPoint}s, stored as parallel primitive arrays instead of one object per point. Coordinates
+ * and normals take up three floats per point, texture coordinates two.<br>
+ * The bone bindings are stored per cluster: points with the same bindings share a cluster. Every cluster has room for
+ * {@link #MAX_BINDINGS} bindings, of which the first <code>getClusterBindingCount(cluster)</code> are used. Points
+ * without bindings are in no cluster.<br>
+ * The arrays are shared, not copied, when the points are passed along, so don't modify them.
+ *
+ * @author WorldSEnder
+ */
+@OnlyIn(Dist.CLIENT)
+public final class PackedPoints {
+    public static final int MAX_BINDINGS = RawDataV1.MAX_NBR_BONEBINDINGS;
+    /**
+     * The cluster of points without bindings
+     */
+    public static final int NO_CLUSTER = -1;
+    public static final PackedPoints EMPTY = new PackedPoints(0, 0);
+
+    private final int pointCount;
+    private final float[] coords;
+    private final float[] normals;
+    private final float[] texCoords;
+    private final int[] clusterOf;
+    private final int clusterCount;
+    private final byte[] clusterBindingCounts;
+    private final int[] clusterBoneIndices;
+    private final float[] clusterBindingValues;
+
+    private PackedPoints(int pointCount, int clusterCount) {
+        this(
+                pointCount,
+                new float[pointCount * 3],
+                new float[pointCount * 3],
+                new float[pointCount * 2],
+                new int[pointCount],
+                clusterCount,
+                new byte[clusterCount],
+                new int[clusterCount * MAX_BINDINGS],
+                new float[clusterCount * MAX_BINDINGS]);
+    }
+
+    private PackedPoints(
+            int pointCount,
+            float[] coords,
+            float[] normals,
+            float[] texCoords,
+            int[] clusterOf,
+            int clusterCount,
+            byte[] clusterBindingCounts,
+            int[] clusterBoneIndices,
+            float[] clusterBindingValues) {
+        this.pointCount = pointCount;
+        this.coords = coords;
+        this.normals = normals;
+        this.texCoords = texCoords;
+        this.clusterOf = clusterOf;
+        this.clusterCount = clusterCount;
+        this.clusterBindingCounts = clusterBindingCounts;
+        this.clusterBoneIndices = clusterBoneIndices;
+        this.clusterBindingValues = clusterBindingValues;
+    }
+
+    /**
+     * Wraps the arrays given without copying them. The layout is described by the getters of the same name.
+     *
+     * @throws ModelFormatException if the arrays are too short or a point refers to a cluster that doesn't exist
+     */
+    public static PackedPoints wrap(
+            float[] coords,
+            float[] normals,
+            float[] texCoords,
+            int[] clusterOf,
+            byte[] clusterBindingCounts,
+            int[] clusterBoneIndices,
+            float[] clusterBindingValues) throws ModelFormatException {
+        int pointCount = clusterOf.length;
+        int clusterCount = clusterBindingCounts.length;
+        if (coords.length < pointCount * 3 || normals.length < pointCount * 3 || texCoords.length < pointCount * 2
+                || clusterBoneIndices.length < clusterCount * MAX_BINDINGS
+                || clusterBindingValues.length < clusterCount * MAX_BINDINGS) {
+            throw new ModelFormatException("Not enough data for " + pointCount + " points");
+        }
+        for (int cluster : clusterOf) {
+            if (cluster != NO_CLUSTER && (cluster < 0 || cluster >= clusterCount)) {
+                throw new ModelFormatException(
+                        String.format("Cluster (%d) has to be smaller than nbrClusters (%d).", cluster, clusterCount));
+            }
+        }
+        for (byte count : clusterBindingCounts) {
+            if (count < 0 || count > MAX_BINDINGS) {
+                throw new ModelFormatException("Too many bindings in a cluster: " + count);
+            }
+        }
+        return new PackedPoints(
+                pointCount,
+                coords,
+                normals,
+                texCoords,
+                clusterOf,
+                clusterCount,
+                clusterBindingCounts,
+                clusterBoneIndices,
+                clusterBindingValues);
+    }
+
+    /**
+     * Reads points of model versions 1 and 2 straight into the arrays. Each point is stored as its coordinates, normal
+     * and texture coordinates, followed by its bindings as read by {@link #readBindings(DataInput, int[], float[])}.
+     *
+     * @param di         the input to read from
+     * @param pointCount the number of points to read
+     * @return the points read
+     */
+    public static PackedPoints readFrom(DataInput di, int pointCount) throws IOException {
+        Builder builder = new Builder(pointCount);
+        int[] bones = builder.bones;
+        float[] values = builder.values;
+        for (int i = 0; i < pointCount; i++) {
+            // Adding a cluster may replace the arrays
+            PackedPoints points = builder.points;
+            // Read coords
+            points.coords[i * 3] = di.readFloat();
+            points.coords[i * 3 + 1] = di.readFloat();
+            points.coords[i * 3 + 2] = di.readFloat();
+            // Read normal
+            float nx = di.readFloat(), ny = di.readFloat(), nz = di.readFloat();
+            if (nx * nx + ny * ny + nz * nz == 0)
+                throw new ModelFormatException("Normal vector can't have zerolength.");
+            points.normals[i * 3] = nx;
+            points.normals[i * 3 + 1] = ny;
+            points.normals[i * 3 + 2] = nz;
+            // Read materialIndex coordinates
+            points.texCoords[i * 2] = di.readFloat();
+            points.texCoords[i * 2 + 1] = di.readFloat();
+            // Read bindings
+            int count = readBindings(di, bones, values);
+            int cluster = builder.clusterOf(count, bones, values);
+            builder.points.clusterOf[i] = cluster;
+        }
+        builder.pointCount = pointCount;
+        return builder.build();
+    }
+
+    /**
+     * Reads the bindings of a point: up to {@link #MAX_BINDINGS} pairs of the bone index as an unsigned byte and the
+     * binding value as a float. Unless all of them are used, the list ends with a bone index of 0xFF.
+     *
+     * @param bones  the array to store the bone indices into, at least {@link #MAX_BINDINGS} long
+     * @param values the array to store the binding values into, at least {@link #MAX_BINDINGS} long
+     * @return the number of bindings read
+     */
+    static int readBindings(DataInput di, int[] bones, float[] values) throws IOException {
+        int bindIndex;
+        int count = 0;
+        while (count < MAX_BINDINGS && (bindIndex = di.readUnsignedByte()) != 0xFF) {
+            float bindingValue = di.readFloat();
+            if (Math.abs(bindingValue) > 100.0F || bindingValue < 0)
+                throw new ModelFormatException(
+                        String.format(
+                                "Value for binding seems out of range: %f (expected to be in [0, 100]",
+                                bindingValue));
+            bones[count] = bindIndex;
+            values[count] = bindingValue;
+            count++;
+        }
+        return count;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * The coordinates, x, y and z of point i start at <code>3 * i</code>. Don't modify.
+     */
+    public float[] getCoords() {
+        return coords;
+    }
+
+    /**
+     * The normals, x, y and z of point i start at <code>3 * i</code>. Don't modify.
+     */
+    public float[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * The texture coordinates, u and v of point i start at <code>2 * i</code>. Don't modify.
+     */
+    public float[] getTexCoords() {
+        return texCoords;
+    }
+
+    /**
+     * The cluster of each point, {@link #NO_CLUSTER} for points without bindings. Don't modify.
+     */
+    public int[] getClusterOf() {
+        return clusterOf;
+    }
+
+    /**
+     * @return the number of distinct sets of bindings
+     */
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * @return the number of bone bindings of the cluster
+     */
+    public int getClusterBindingCount(int cluster) {
+        return clusterBindingCounts[cluster];
+    }
+
+    /**
+     * @return the bone index of a binding of the cluster
+     */
+    public int getClusterBoneIndex(int cluster, int binding) {
+        return clusterBoneIndices[cluster * MAX_BINDINGS + binding];
+    }
+
+    /**
+     * @return the value of a binding of the cluster
+     */
+    public float getClusterBindingValue(int cluster, int binding) {
+        return clusterBindingValues[cluster * MAX_BINDINGS + binding];
+    }
+
+    /**
+     * Creates a {@link TesselationPoint} for a single point, for visitors that don't handle points in bulk.
+     *
+     * @param point the index of the point
+     * @return a new object holding the attributes of the point
+     */
+    public TesselationPoint getPoint(int point) {
+        TesselationPoint tessP = new TesselationPoint();
+        tessP.coords = new Vector3f(coords[point * 3], coords[point * 3 + 1], coords[point * 3 + 2]);
+        tessP.normal = new Vector3f(normals[point * 3], normals[point * 3 + 1], normals[point * 3 + 2]);
+        tessP.texCoords = new Vector2f(texCoords[point * 2], texCoords[point * 2 + 1]);
+        int cluster = clusterOf[point];
+        tessP.boneBindings = new BoneBinding[cluster == NO_CLUSTER ? 0 : clusterBindingCounts[cluster]];
+        for (int k = 0; k < tessP.boneBindings.length; k++) {
+            BoneBinding binding = new BoneBinding();
+            binding.boneIndex = getClusterBoneIndex(cluster, k);
+            binding.bindingValue = getClusterBindingValue(cluster, k);
+            tessP.boneBindings[k] = binding;
+        }
+        return tessP;
+    }
+
+    /**
+     * Collects points one by one or in bulk. If only a single {@link PackedPoints} is added, it is built without
+     * copying.
+     *
+     * @author WorldSEnder
+     */
+    public static final class Builder {
+        private PackedPoints shared = null;
+        private PackedPoints points;
+        private int pointCount = 0;
+        private int clusterCount = 0;
+        private final Map<ClusterKey, Integer> clusterIndices = new HashMap<>();
+        private final ClusterKey probe = new ClusterKey(new int[MAX_BINDINGS], new float[MAX_BINDINGS]);
+        private final int[] bones = new int[MAX_BINDINGS];
+        private final float[] values = new float[MAX_BINDINGS];
+
+        public Builder() {
+            this(0);
+        }
+
+        private Builder(int capacity) {
+            this.points = capacity == 0 ? EMPTY : new PackedPoints(capacity, 0);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (shared != null) {
+                // Growing copies the arrays, the shared points stay untouched
+                PackedPoints other = shared;
+                shared = null;
+                grow(Math.max(other.pointCount + additional, 16), 0);
+                addAll(other);
+            }
+            int required = pointCount + additional;
+            if (required > points.pointCount) {
+                grow(Math.max(required, points.pointCount * 2), points.clusterCount);
+            }
+        }
+
+        private void grow(int capacity, int clusterCapacity) {
+            PackedPoints p = points;
+            points = new PackedPoints(
+                    capacity,
+                    Arrays.copyOf(p.coords, capacity * 3),
+                    Arrays.copyOf(p.normals, capacity * 3),
+                    Arrays.copyOf(p.texCoords, capacity * 2),
+                    Arrays.copyOf(p.clusterOf, capacity),
+                    clusterCapacity,
+                    Arrays.copyOf(p.clusterBindingCounts, clusterCapacity),
+                    Arrays.copyOf(p.clusterBoneIndices, clusterCapacity * MAX_BINDINGS),
+                    Arrays.copyOf(p.clusterBindingValues, clusterCapacity * MAX_BINDINGS));
+        }
+
+        /**
+         * @return the index of the cluster with the bindings given, added if it doesn't exist yet
+         */
+        private int clusterOf(int count, int[] bones, float[] values) {
+            if (count == 0) {
+                return NO_CLUSTER;
+            }
+            probe.set(count, bones, values);
+            Integer index = clusterIndices.get(probe);
+            if (index != null) {
+                return index;
+            }
+            index = clusterCount++;
+            clusterIndices.put(probe.copy(), index);
+            if (index >= points.clusterCount) {
+                grow(points.pointCount, Math.max(index + 1, points.clusterCount * 2));
+            }
+            PackedPoints p = points;
+            p.clusterBindingCounts[index] = (byte) count;
+            System.arraycopy(bones, 0, p.clusterBoneIndices, index * MAX_BINDINGS, count);
+            System.arraycopy(values, 0, p.clusterBindingValues, index * MAX_BINDINGS, count);
+            return index;
+        }
+
+        private void addAll(PackedPoints other) {
+            int n = other.pointCount, at = pointCount;
+            System.arraycopy(other.coords, 0, points.coords, at * 3, n * 3);
+            System.arraycopy(other.normals, 0, points.normals, at * 3, n * 3);
+            System.arraycopy(other.texCoords, 0, points.texCoords, at * 2, n * 2);
+            int[] remapped = new int[other.clusterCount];
+            for (int c = 0; c < other.clusterCount; c++) {
+                int count = other.clusterBindingCounts[c];
+                System.arraycopy(other.clusterBoneIndices, c * MAX_BINDINGS, bones, 0, count);
+                System.arraycopy(other.clusterBindingValues, c * MAX_BINDINGS, values, 0, count);
+                remapped[c] = clusterOf(count, bones, values);
+            }
+            for (int i = 0; i < n; i++) {
+                int cluster = other.clusterOf[i];
+                points.clusterOf[at + i] = cluster == NO_CLUSTER ? NO_CLUSTER : remapped[cluster];
+            }
+            pointCount += n;
+        }
+
+        public Builder add(TesselationPoint point) {
+            ensureCapacity(1);
+            PackedPoints p = points;
+            int i = pointCount++;
+            p.coords[i * 3] = point.coords.x;
+            p.coords[i * 3 + 1] = point.coords.y;
+            p.coords[i * 3 + 2] = point.coords.z;
+            p.normals[i * 3] = point.normal.x;
+            p.normals[i * 3 + 1] = point.normal.y;
+            p.normals[i * 3 + 2] = point.normal.z;
+            p.texCoords[i * 2] = point.texCoords.x;
+            p.texCoords[i * 2 + 1] = point.texCoords.y;
+            int count = Math.min(point.boneBindings.length, MAX_BINDINGS);
+            for (int k = 0; k < count; k++) {
+                bones[k] = point.boneBindings[k].boneIndex;
+                values[k] = point.boneBindings[k].bindingValue;
+            }
+            // Adding a cluster may replace the arrays
+            int cluster = clusterOf(count, bones, values);
+            points.clusterOf[i] = cluster;
+            return this;
+        }
+
+        public Builder add(PackedPoints other) {
+            if (other.pointCount == 0) {
+                return this;
+            }
+            if (pointCount == 0 && shared == null) {
+                shared = other;
+                return this;
+            }
+            ensureCapacity(other.pointCount);
+            addAll(other);
+            return this;
+        }
+
+        public PackedPoints build() {
+            if (shared != null) {
+                return shared;
+            }
+            if (pointCount != points.pointCount || clusterCount != points.clusterCount) {
+                grow(pointCount, clusterCount);
+            }
+            return points;
+        }
+    }
+
+    /**
+     * The bindings of a cluster, used to find clusters with the same bindings.
+     */
+    private static final class ClusterKey {
+        private int count;
+        private final int[] bones;
+        private final float[] values;
+
+        public ClusterKey(int[] bones, float[] values) {
+            this.bones = bones;
+            this.values = values;
+        }
+
+        public void set(int count, int[] bones, float[] values) {
+            this.count = count;
+            System.arraycopy(bones, 0, this.bones, 0, count);
+            System.arraycopy(values, 0, this.values, 0, count);
+        }
+
+        public ClusterKey copy() {
+            ClusterKey copy = new ClusterKey(Arrays.copyOf(bones, count), Arrays.copyOf(values, count));
+            copy.count = count;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = count;
+            for (int i = 0; i < count; i++) {
+                hash = 31 * hash + bones[i];
+                hash = 31 * hash + Float.floatToIntBits(values[i]);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ClusterKey)) {
+                return false;
+            }
+            ClusterKey other = (ClusterKey) obj;
+            if (count != other.count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (bones[i] != other.bones[i]
+                        || Float.floatToIntBits(values[i]) != Float.floatToIntBits(other.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.worldsender.mcanm.client.model;
 
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -14,4 +16,24 @@ public interface IModelStateInformation {
 
     boolean shouldRenderPart(String part);
 
+    /**
+     * The cursor of the rendered object, speeds up evaluating the animation when it is played continuously. Return
+     * <code>null</code> if the object doesn't keep a cursor.
+     *
+     * @return the cursor of the rendered object, may be <code>null</code>
+     */
+    default EvaluationCursor getEvaluationCursor() {
+        return null;
+    }
+
+    /**
+     * The pose of the rendered object. Objects that keep a pose of their own can be rendered independently of each
+     * other. Return <code>null</code> to use the default pose of the skeleton.
+     *
+     * @return the pose of the rendered object, may be <code>null</code>
+     */
+    default SkeletonPose getSkeletonPose() {
+        return null;
+    }
+
 }
@@ -2,10 +2,12 @@ package com.github.worldsender.mcanm.client.model;
 
 import java.lang.reflect.Type;
 import java.util.Objects;
+import java.util.Optional;
 
 import com.github.worldsender.mcanm.client.ClientLoader;
 import com.github.worldsender.mcanm.client.mcanmmodel.ModelMCMD;
 import com.github.worldsender.mcanm.common.CommonLoader;
+import com.github.worldsender.mcanm.common.animation.StoredAnimation;
 import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
 import com.github.worldsender.mcanm.common.skeleton.LegacyModelAsSkeleton;
 import com.github.worldsender.mcanm.common.skeleton.SkeletonMCSKL;
@@ -23,7 +25,8 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 
 /**
  * Contains references to all required file to display the whole model. This includes the mesh-model ({@link ModelMCMD})
- * and the skeleton file ({@link SkeletonMCSKL})
+ * and the skeleton file ({@link SkeletonMCSKL}), optionally an animation played by item models, see
+ * {@link ItemAnimation}.
  *
  * @author WorldSEnder
  */
@@ -36,12 +39,15 @@ public class ModelDescription {
 
     private final ModelMCMD model;
     private final ISkeleton skeleton;
+    private final Optional<ItemAnimation> animation;
 
     private ModelDescription(
             ModelMCMD model,
-            ISkeleton skeleton) {
+            ISkeleton skeleton,
+            Optional<ItemAnimation> animation) {
         this.model = Objects.requireNonNull(model);
         this.skeleton = Objects.requireNonNull(skeleton);
+        this.animation = Objects.requireNonNull(animation);
     }
 
     public static ModelDescription parse(JsonObject modelContents) {
@@ -56,6 +62,79 @@ public class ModelDescription {
         return skeleton;
     }
 
+    public Optional<ItemAnimation> getAnimation() {
+        return animation;
+    }
+
+    /**
+     * An animation played by an item model. The model is baked at a number of frames sampled evenly from the
+     * animation, the sample shown is chosen by an item property giving the phase of the animation, from 0 to 1.<br>
+     * Described in the model json as
+     *
+     * <pre>
+     * "animation": {
+     *     "file": "modid:models/item/animation.mcanm",
+     *     "length": 20,
+     *     "samples": 16,
+     *     "property": "modid:phase"
+     * }
+     * </pre>
+     *
+     * where length is the frame the phase 1 corresponds to and samples is optional.
+     *
+     * @author WorldSEnder
+     */
+    public static class ItemAnimation {
+        public static final int DEFAULT_SAMPLES = 16;
+        public static final int MAX_SAMPLES = 256;
+
+        private final StoredAnimation animation;
+        private final float length;
+        private final int samples;
+        private final ResourceLocation property;
+
+        private ItemAnimation(StoredAnimation animation, float length, int samples, ResourceLocation property) {
+            this.animation = Objects.requireNonNull(animation);
+            this.length = length;
+            this.samples = samples;
+            this.property = Objects.requireNonNull(property);
+        }
+
+        public StoredAnimation getAnimation() {
+            return animation;
+        }
+
+        /**
+         * @return the number of frames the model is baked at
+         */
+        public int getSampleCount() {
+            return samples;
+        }
+
+        /**
+         * @return the frame in the animation the sample with the given index shows
+         */
+        public float getSampleFrame(int sample) {
+            return length * sample / samples;
+        }
+
+        /**
+         * @param phase the phase of the animation, wraps around at 1
+         * @return the index of the sample closest to the phase
+         */
+        public int getSampleIndex(float phase) {
+            int sample = Math.round(phase * samples) % samples;
+            return sample < 0 ? sample + samples : sample;
+        }
+
+        /**
+         * @return the item property giving the phase of the animation
+         */
+        public ResourceLocation getProperty() {
+            return property;
+        }
+    }
+
     private static class DescriptionDeserializer implements JsonDeserializer<ModelDescription> {
         private ISkeleton loadSkeleton(boolean legacy, JsonObject jsonObject) {
             if (!legacy && !jsonObject.has("skeleton")) {
@@ -72,6 +151,31 @@ public class ModelDescription {
             return CommonLoader.loadLegacySkeleton(skeletonLocation);
         }
 
+        private Optional<ItemAnimation> loadAnimation(JsonObject jsonObject) {
+            if (!jsonObject.has("animation")) {
+                return Optional.empty();
+            }
+            JsonObject animationObject = jsonObject.getAsJsonObject("animation");
+            if (!animationObject.has("file") || !animationObject.has("length") || !animationObject.has("property")) {
+                throw new JsonParseException("An item animation requires a file, a length and a property");
+            }
+            float length = animationObject.get("length").getAsFloat();
+            if (!(length > 0)) {
+                throw new JsonParseException("The length of an item animation must be positive");
+            }
+            int samples = animationObject.has("samples")
+                    ? animationObject.get("samples").getAsInt()
+                    : ItemAnimation.DEFAULT_SAMPLES;
+            if (samples < 1 || samples > ItemAnimation.MAX_SAMPLES) {
+                throw new JsonParseException(
+                        "An item animation needs between 1 and " + ItemAnimation.MAX_SAMPLES + " samples");
+            }
+            ResourceLocation animationLocation = new ResourceLocation(animationObject.get("file").getAsString());
+            ResourceLocation property = new ResourceLocation(animationObject.get("property").getAsString());
+            StoredAnimation animation = CommonLoader.loadAnimation(animationLocation);
+            return Optional.of(new ItemAnimation(animation, length, samples, property));
+        }
+
         @Override
         public ModelDescription deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
                 throws JsonParseException {
@@ -86,8 +190,9 @@ public class ModelDescription {
 
             ResourceLocation modelLocation = new ResourceLocation(jsonObject.get("mesh").getAsString());
             ModelMCMD mesh = ClientLoader.loadModel(modelLocation, skeleton);
+            Optional<ItemAnimation> animation = loadAnimation(jsonObject);
 
-            return new ModelDescription(mesh, skeleton);
+            return new ModelDescription(mesh, skeleton, animation);
         }
     }
 
@@ -1,18 +1,22 @@
 package com.github.worldsender.mcanm.client.model;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.github.worldsender.mcanm.client.mcanmmodel.ModelMCMD;
+import com.github.worldsender.mcanm.client.mcanmmodel.parts.BakedQuadBuckets;
+import com.github.worldsender.mcanm.client.model.ModelDescription.ItemAnimation;
 import com.github.worldsender.mcanm.client.model.util.ModelStateInformation;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonObject;
@@ -26,10 +30,14 @@ import net.minecraft.client.renderer.model.ItemOverrideList;
 import net.minecraft.client.renderer.model.Material;
 import net.minecraft.client.renderer.model.ModelBakery;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.entity.LivingEntity;
 import net.minecraft.inventory.container.PlayerContainer;
+import net.minecraft.item.IItemPropertyGetter;
+import net.minecraft.item.ItemStack;
 import net.minecraft.resources.IResourceManager;
 import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.client.model.IModelConfiguration;
@@ -71,9 +79,11 @@ public enum ModelLoader implements IModelLoader<ModelLoader.ModelWrapper> {
 
     public static class ModelWrapper implements IModelGeometry<ModelWrapper> {
         private final ModelMCMD actualModel;
+        private final Optional<ItemAnimation> animation;
 
         public ModelWrapper(ModelDescription description) {
             this.actualModel = description.getModel();
+            this.animation = description.getAnimation();
         }
 
         private Function<String, Material> resolveMaterialOn(IModelConfiguration owner) {
@@ -105,12 +115,28 @@ public enum ModelLoader implements IModelLoader<ModelLoader.ModelWrapper> {
             // Note the missing leading '#', surely it does not collide
             TextureAtlasSprite particleSprite = spriteGetter.apply(owner.resolveTexture("particles"));
 
+            Map<String, TextureAtlasSprite> slotToTex = slotToTexSprite.build();
             ModelStateInformation stateInformation = new ModelStateInformation();
-            stateInformation.setAnimation(new AnimationStateProxy());
-            stateInformation.setFrame(0);
-            List<BakedQuad> bakedQuads = actualModel.getAsBakedQuads(stateInformation, slotToTexSprite.build());
-
-            return new BakedModelWrapper(bakedQuads, particleSprite, overrides);
+            // Models may be baked off the render thread, don't touch the default pose
+            stateInformation.setSkeletonPose(new SkeletonPose());
+            if (!animation.isPresent()) {
+                stateInformation.setAnimation(new AnimationStateProxy());
+                stateInformation.setFrame(0);
+                BakedQuadBuckets bakedQuads = actualModel.getAsBakedQuads(stateInformation, slotToTex);
+
+                return new BakedModelWrapper(bakedQuads, particleSprite, overrides);
+            }
+            // Baking per frame is too expensive for held items, bake the samples once
+            ItemAnimation itemAnimation = animation.get();
+            stateInformation.setAnimation(itemAnimation.getAnimation());
+            AnimatedOverrideList animatedOverrides = new AnimatedOverrideList(overrides, itemAnimation);
+            for (int sample = 0; sample < itemAnimation.getSampleCount(); sample++) {
+                stateInformation.setFrame(itemAnimation.getSampleFrame(sample));
+                BakedQuadBuckets bakedQuads = actualModel.getAsBakedQuads(stateInformation, slotToTex);
+                animatedOverrides.samples[sample] =
+                        new BakedModelWrapper(bakedQuads, particleSprite, animatedOverrides);
+            }
+            return animatedOverrides.samples[0];
         }
 
         @Override
@@ -121,16 +147,49 @@ public enum ModelLoader implements IModelLoader<ModelLoader.ModelWrapper> {
         }
     }
 
+    /**
+     * Selects the baked sample of an animated item model closest to the current phase of the animation. The overrides
+     * of the model json take precedence.
+     *
+     * @author WorldSEnder
+     */
+    private static class AnimatedOverrideList extends ItemOverrideList {
+        private final ItemOverrideList overrides;
+        private final ItemAnimation animation;
+        private final IBakedModel[] samples;
+
+        public AnimatedOverrideList(ItemOverrideList overrides, ItemAnimation animation) {
+            this.overrides = Objects.requireNonNull(overrides);
+            this.animation = Objects.requireNonNull(animation);
+            this.samples = new IBakedModel[animation.getSampleCount()];
+        }
+
+        @Override
+        public IBakedModel getModelWithOverrides(
+                IBakedModel model,
+                ItemStack stack,
+                World worldIn,
+                LivingEntity entityIn) {
+            IBakedModel overridden = overrides.getModelWithOverrides(model, stack, worldIn, entityIn);
+            if (overridden != model) {
+                return overridden;
+            }
+            IItemPropertyGetter phaseGetter = stack.getItem().getPropertyGetter(animation.getProperty());
+            float phase = phaseGetter == null ? 0.0F : phaseGetter.call(stack, worldIn, entityIn);
+            return samples[animation.getSampleIndex(phase)];
+        }
+    }
+
     public static class BakedModelWrapper implements IDynamicBakedModel {
-        private final List<BakedQuad> generalBakedQuads;
+        private final BakedQuadBuckets bakedQuads;
         private final TextureAtlasSprite particleSprite;
         private final ItemOverrideList itemOverrides;
 
         public BakedModelWrapper(
-                List<BakedQuad> generalBakedQuads,
+                BakedQuadBuckets bakedQuads,
                 TextureAtlasSprite particleSprite,
                 ItemOverrideList itemOverrides) {
-            this.generalBakedQuads = Objects.requireNonNull(generalBakedQuads);
+            this.bakedQuads = Objects.requireNonNull(bakedQuads);
             // There is at least the "missingno" texture in the list
             this.particleSprite = particleSprite;
             this.itemOverrides = Objects.requireNonNull(itemOverrides);
@@ -158,10 +217,7 @@ public enum ModelLoader implements IModelLoader<ModelLoader.ModelWrapper> {
 
         @Override
         public List<BakedQuad> getQuads(BlockState state, Direction side, Random rand, IModelData modelData) {
-            if (side == null) {
-                return generalBakedQuads;
-            }
-            return Collections.emptyList();
+            return bakedQuads.getQuads(side);
         }
 
         @Override
@@ -4,6 +4,8 @@ import java.util.Arrays;
 
 import com.github.worldsender.mcanm.common.animation.IAnimation;
 import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
+import com.github.worldsender.mcanm.common.animation.IBindableAnimation;
+import com.github.worldsender.mcanm.common.animation.parts.AnimatedTransform;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -16,11 +18,42 @@ public class Animations {
      * The animations returned returns no {@link BoneTransformation} if and only if none of the animations would return
      * a Transformation. Else the Transformation of the first animation that does return one is returned.
      *
+     * If all choices are {@link IBindableAnimation}s, so is the returned animation. Keep the returned instance around
+     * instead of combining the animations again every frame, skeletons cache their bindings per animation instance.
+     *
      * @param choices the choices, in the induced order. Usually two or more are given
      * @return an animation that picks it's transforms from the animations given.
      */
     public static IAnimation combined(final IAnimation... choices) {
-        return combined(Arrays.asList(choices));
+        final IAnimation[] copy = choices.clone();
+        for (IAnimation choice : copy) {
+            if (!(choice instanceof IBindableAnimation)) {
+                return combined(Arrays.asList(copy));
+            }
+        }
+        final IBindableAnimation[] bindables = Arrays.copyOf(copy, copy.length, IBindableAnimation[].class);
+        return new IBindableAnimation() {
+            @Override
+            public AnimatedTransform getAnimatedTransform(String bone) {
+                for (IBindableAnimation other : bindables) {
+                    AnimatedTransform transform = other.getAnimatedTransform(bone);
+                    if (transform != null) {
+                        return transform;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public int getGeneration() {
+                // Generations only ever increase, so the sum changes whenever any of the choices changes
+                int generation = 0;
+                for (IBindableAnimation other : bindables) {
+                    generation += other.getGeneration();
+                }
+                return generation;
+            }
+        };
     }
 
     /**
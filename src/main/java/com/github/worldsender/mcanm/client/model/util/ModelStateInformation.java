@@ -5,7 +5,9 @@ import java.util.Optional;
 import java.util.function.Predicate;
 
 import com.github.worldsender.mcanm.client.model.IModelStateInformation;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -37,13 +39,16 @@ public class ModelStateInformation implements IModelStateInformation {
     private Predicate<String> partPredicate;
     private float frame;
     private IAnimation animation;
+    private EvaluationCursor cursor;
+    private SkeletonPose pose;
 
     public ModelStateInformation() {
         this.reset();
     }
 
     public void reset() {
-        this.setFrame(0F).setAnimation(Optional.empty()).setPartPredicate(Optional.empty());
+        this.setFrame(0F).setAnimation(Optional.empty()).setPartPredicate(Optional.empty()).setEvaluationCursor(null)
+                .setSkeletonPose(null);
     }
 
     @Override
@@ -92,6 +97,32 @@ public class ModelStateInformation implements IModelStateInformation {
         return this;
     }
 
+    @Override
+    public EvaluationCursor getEvaluationCursor() {
+        return cursor;
+    }
+
+    /**
+     * @param cursor the cursor of the rendered object, null if it doesn't keep one
+     */
+    public ModelStateInformation setEvaluationCursor(EvaluationCursor cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    @Override
+    public SkeletonPose getSkeletonPose() {
+        return pose;
+    }
+
+    /**
+     * @param pose the pose of the rendered object, null to use the default pose of the skeleton
+     */
+    public ModelStateInformation setSkeletonPose(SkeletonPose pose) {
+        this.pose = pose;
+        return this;
+    }
+
     /**
      * @param partPredicate the partPredicate to set, Optional.empty() for RENDER_ALL
      */
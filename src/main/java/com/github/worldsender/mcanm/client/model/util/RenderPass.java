@@ -4,7 +4,9 @@ import java.util.Objects;
 
 import com.github.worldsender.mcanm.client.IRenderPass;
 import com.github.worldsender.mcanm.client.model.IRenderPassInformation;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 
@@ -64,6 +66,16 @@ public class RenderPass<T extends Entity> implements IRenderPass {
         return userInfo.getFrame();
     }
 
+    @Override
+    public EvaluationCursor getEvaluationCursor() {
+        return userInfo.getEvaluationCursor();
+    }
+
+    @Override
+    public SkeletonPose getSkeletonPose() {
+        return userInfo.getSkeletonPose();
+    }
+
     @Override
     public boolean shouldRenderPart(String part) {
         return userInfo.shouldRenderPart(part);
@@ -7,7 +7,9 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import com.github.worldsender.mcanm.client.model.IRenderPassInformation;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -104,6 +106,18 @@ public class RenderPassInformation extends ModelStateInformation implements IRen
         return this;
     }
 
+    @Override
+    public RenderPassInformation setEvaluationCursor(EvaluationCursor cursor) {
+        super.setEvaluationCursor(cursor);
+        return this;
+    }
+
+    @Override
+    public RenderPassInformation setSkeletonPose(SkeletonPose pose) {
+        super.setSkeletonPose(pose);
+        return this;
+    }
+
     /**
      * @param partPredicate the partPredicate to set, Optional.empty() for RENDER_ALL
      */
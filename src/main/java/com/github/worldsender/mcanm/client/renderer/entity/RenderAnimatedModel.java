@@ -1,5 +1,8 @@
 package com.github.worldsender.mcanm.client.renderer.entity;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import com.github.worldsender.mcanm.client.ClientLoader;
 import com.github.worldsender.mcanm.client.mcanmmodel.IModel;
 import com.github.worldsender.mcanm.client.model.IEntityAnimator;
@@ -9,6 +12,7 @@ import com.github.worldsender.mcanm.client.model.util.RenderPass;
 import com.github.worldsender.mcanm.client.model.util.RenderPassInformation;
 import com.github.worldsender.mcanm.client.renderer.IAnimatedObject;
 import com.github.worldsender.mcanm.common.skeleton.ISkeleton;
+import com.github.worldsender.mcanm.common.skeleton.SkeletonPose;
 import com.mojang.blaze3d.matrix.MatrixStack;
 
 import net.minecraft.client.renderer.IRenderTypeBuffer;
@@ -35,6 +39,7 @@ public class RenderAnimatedModel<T extends LivingEntity> extends EntityRenderer<
     private RenderPassInformation renderPassCache = new RenderPassInformation();
     private RenderPass<T> renderPass = new RenderPass<>(renderPassCache);
     private float partialTick;
+    private final Map<T, SkeletonPose> poses = new WeakHashMap<>();
 
     public RenderAnimatedModel(
             EntityRendererManager manager,
@@ -105,6 +110,7 @@ public class RenderAnimatedModel<T extends LivingEntity> extends EntityRenderer<
         int blockLight = this.getBlockLight(entity, partialTicks);
         int skyLight = entity.world.getLightFor(LightType.SKY, new BlockPos(entity.getEyePosition(partialTicks)));
         renderPassCache.setPackedLightmap(LightTexture.packLight(blockLight, skyLight));
+        renderPassCache.setSkeletonPose(poses.computeIfAbsent(entity, e -> new SkeletonPose()));
 
         IRenderPassInformation actualRenderPass =
             this.animator.preRenderCallback(entity, renderPassCache, partialTick);
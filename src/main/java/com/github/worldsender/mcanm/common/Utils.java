@@ -18,7 +18,7 @@ import static org.lwjgl.opengl.GL20.glGetShaderi;
 import static org.lwjgl.opengl.GL20.glLinkProgram;
 import static org.lwjgl.opengl.GL20.glShaderSource;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -67,14 +67,14 @@ public class Utils {
      * Decodes the next bytes to a {@link String}. The bytes are interpreted as valid UTF-8 data. Bytes are read until a
      * (null)-byte occurs (read inclusively) or the EOF is found.
      *
-     * @param dis the {@link DataInputStream} to read from
+     * @param dis the {@link DataInput} to read from
      * @return the read {@link String}
      * @throws MalformedInputException      when a byte sequence can't be decoded
      * @throws UnmappableCharacterException when a byte sequence can't be mapped to a character
      * @throws IOException                  if an IOError occurs that is not an {@link EOFException}
      * @see
      */
-    public static String readString(DataInputStream dis)
+    public static String readString(DataInput dis)
             throws MalformedInputException,
             UnmappableCharacterException,
             IOException {
@@ -82,7 +82,7 @@ public class Utils {
         byte[] buffer = new byte[64];
         int currLength = 64;
         int offset = 0;
-        for (int currByte; (currByte = dis.read()) > 0; ) {
+        for (int currByte; (currByte = readByteOrEnd(dis)) > 0; ) {
             if (offset == currLength) {
                 currLength += 64;
                 buffer = Arrays.copyOf(buffer, currLength);
@@ -117,15 +117,26 @@ public class Utils {
         return new String(target, 0, strLen);
     }
 
+    /**
+     * @return the next byte as an unsigned value, -1 at the end of the input
+     */
+    private static int readByteOrEnd(DataInput dis) throws IOException {
+        try {
+            return dis.readUnsignedByte();
+        } catch (EOFException eofe) {
+            return -1;
+        }
+    }
+
     /**
      * Reads a {@link Vector2f} from the datainput
      *
-     * @param dis the {@link DataInputStream} to read from
+     * @param dis the {@link DataInput} to read from
      * @return the constructed {@link Vector3f}
      * @throws EOFException when the data ends before 3 floats are read
-     * @throws IOException  when some IOException occurs in the given {@link DataInputStream}
+     * @throws IOException  when some IOException occurs in the given {@link DataInput}
      */
-    public static Vector2f readVector2f(DataInputStream dis) throws EOFException, IOException {
+    public static Vector2f readVector2f(DataInput dis) throws EOFException, IOException {
         float x = dis.readFloat();
         float y = dis.readFloat();
         return new Vector2f(x, y);
@@ -134,12 +145,12 @@ public class Utils {
     /**
      * Reads a {@link Vector3f} from the datainput
      *
-     * @param dis the {@link DataInputStream} to read from
+     * @param dis the {@link DataInput} to read from
      * @return the constructed {@link Vector3f}
      * @throws EOFException when the data ends before 3 floats are read
-     * @throws IOException  when some IOException occurs in the given {@link DataInputStream}
+     * @throws IOException  when some IOException occurs in the given {@link DataInput}
      */
-    public static Vector3f readVector3f(DataInputStream dis) throws EOFException, IOException {
+    public static Vector3f readVector3f(DataInput dis) throws EOFException, IOException {
         float x = dis.readFloat();
         float y = dis.readFloat();
         float z = dis.readFloat();
@@ -149,11 +160,11 @@ public class Utils {
     /**
      * Reads a {@link Quat4f} from the given {@link InputStream}.
      *
-     * @param dis the {@link DataInputStream} to read from
+     * @param dis the {@link DataInput} to read from
      * @throws EOFException when the data ends before 4 floats are read
-     * @throws IOException  when some IOException occurs in the given {@link DataInputStream}
+     * @throws IOException  when some IOException occurs in the given {@link DataInput}
      */
-    public static Quat4f readQuat(DataInputStream dis) throws EOFException, IOException {
+    public static Quat4f readQuat(DataInput dis) throws EOFException, IOException {
         float x = dis.readFloat();
         float y = dis.readFloat();
         float z = dis.readFloat();
@@ -0,0 +1,92 @@
+package com.github.worldsender.mcanm.common.animation;
+
+import java.util.Objects;
+
+import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
+import com.github.worldsender.mcanm.common.animation.parts.AnimatedTransform;
+
+/**
+ * An {@link IBindableAnimation} resolved against the bones of a specific skeleton. The transforms are stored aligned to
+ * the bone indices of the skeleton so that evaluating a pose doesn't have to look up any bone names.<br>
+ * A binding becomes invalid when the animation is reloaded, see {@link #isValidFor(IBindableAnimation)}. The skeleton
+ * is responsible for dropping its bindings when it gets reloaded itself. A binding doesn't reference the animation it
+ * was made from so that it can be cached weakly keyed by the animation.
+ *
+ * @author WorldSEnder
+ */
+public class AnimationBinding {
+    private final AnimatedTransform[] transforms;
+    private final int generation;
+
+    /**
+     * Binds the animation to the bones given.
+     *
+     * @param animation the animation to bind
+     * @param boneNames the names of the bones, by bone index
+     */
+    public AnimationBinding(IBindableAnimation animation, String[] boneNames) {
+        Objects.requireNonNull(animation);
+        // Read the generation first, a concurrent reload then only leads to a spurious rebind
+        this.generation = animation.getGeneration();
+        this.transforms = new AnimatedTransform[boneNames.length];
+        for (int i = 0; i < boneNames.length; i++) {
+            transforms[i] = animation.getAnimatedTransform(boneNames[i]);
+        }
+    }
+
+    /**
+     * @param animation the animation this binding was made from
+     * @return true if the animation hasn't changed since this binding was made
+     */
+    public boolean isValidFor(IBindableAnimation animation) {
+        return animation.getGeneration() == generation;
+    }
+
+    public int getBoneCount() {
+        return transforms.length;
+    }
+
+    /**
+     * @param boneIndex the index of the bone
+     * @return the transform animating the bone, <code>null</code> if the bone is not animated
+     */
+    public AnimatedTransform getTransform(int boneIndex) {
+        return transforms[boneIndex];
+    }
+
+    /**
+     * The same as {@link IAnimation#storeCurrentTransformation(String, float, BoneTransformation)}, but by bone index.
+     *
+     * @param boneIndex the index of the bone
+     * @param frame     the current frame in the animation
+     * @param transform the transform to set
+     * @return if a transformation has been set
+     */
+    public boolean storeCurrentTransformation(int boneIndex, float frame, BoneTransformation transform) {
+        AnimatedTransform anim = transforms[boneIndex];
+        if (anim == null) {
+            return false;
+        }
+        anim.storeTransformAt(frame, transform);
+        return true;
+    }
+
+    /**
+     * The same as {@link #storeCurrentTransformation(int, float, BoneTransformation)}, but uses and updates the segment
+     * hints of an {@link EvaluationCursor}.
+     *
+     * @param boneIndex the index of the bone
+     * @param frame     the current frame in the animation
+     * @param transform the transform to set
+     * @param hints     the segment hints, see {@link EvaluationCursor#getSegmentHints(int)}
+     * @return if a transformation has been set
+     */
+    public boolean storeCurrentTransformation(int boneIndex, float frame, BoneTransformation transform, int[] hints) {
+        AnimatedTransform anim = transforms[boneIndex];
+        if (anim == null) {
+            return false;
+        }
+        anim.storeTransformAt(frame, transform, hints, boneIndex * AnimatedTransform.CHANNEL_COUNT);
+        return true;
+    }
+}
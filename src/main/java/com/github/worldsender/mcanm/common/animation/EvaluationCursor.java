@@ -0,0 +1,31 @@
+package com.github.worldsender.mcanm.common.animation;
+
+import com.github.worldsender.mcanm.common.animation.parts.AnimatedTransform;
+
+/**
+ * Remembers the segment each channel of each bone was last evaluated in. When an animation is played forward, the next
+ * frame is almost always in the same or the next segment, so the cursor turns the search for the segment into a
+ * constant time check. Seeking, looping or switching animations falls back to a binary search.<br>
+ * The state is specific to one animated object, so keep one cursor per entity (or pose) and never share it between
+ * objects that are animated independently. Sharing doesn't lead to wrong results, only to more searching.
+ *
+ * @author WorldSEnder
+ */
+public class EvaluationCursor {
+    private int[] segmentHints = new int[0];
+
+    /**
+     * Gets the hints for the number of bones given, one slot per channel of each bone starting at
+     * <code>boneIndex * {@link AnimatedTransform#CHANNEL_COUNT}</code>.
+     *
+     * @param boneCount the number of bones of the skeleton being evaluated
+     * @return the hints, at least large enough for boneCount bones
+     */
+    public int[] getSegmentHints(int boneCount) {
+        int required = boneCount * AnimatedTransform.CHANNEL_COUNT;
+        if (segmentHints.length < required) {
+            segmentHints = new int[required];
+        }
+        return segmentHints;
+    }
+}
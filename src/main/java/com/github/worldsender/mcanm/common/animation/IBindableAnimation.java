@@ -0,0 +1,37 @@
+package com.github.worldsender.mcanm.common.animation;
+
+import com.github.worldsender.mcanm.common.animation.parts.AnimatedTransform;
+
+/**
+ * An animation that exposes the {@link AnimatedTransform} it uses for each bone. A skeleton can resolve the names of
+ * its bones against it once and from then on evaluate the animation by bone index, see {@link AnimationBinding}.
+ *
+ * @author WorldSEnder
+ */
+public interface IBindableAnimation extends IAnimation {
+    /**
+     * Gets the transform that animates the bone with the given name.
+     *
+     * @param bone the name of the bone
+     * @return the transform of the bone, <code>null</code> if the bone is not animated by this animation
+     */
+    AnimatedTransform getAnimatedTransform(String bone);
+
+    /**
+     * A stamp that changes whenever {@link #getAnimatedTransform(String)} might return a different result than before,
+     * e.g. because the animation has been reloaded. Bindings made against an older generation are invalid.
+     *
+     * @return the current generation of this animation
+     */
+    int getGeneration();
+
+    @Override
+    default boolean storeCurrentTransformation(String bone, float frame, BoneTransformation transform) {
+        AnimatedTransform anim = getAnimatedTransform(bone);
+        if (anim == null) {
+            return false;
+        }
+        anim.storeTransformAt(frame, transform);
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.worldsender.mcanm.common.animation;
 
+import com.github.worldsender.mcanm.MCAnm;
 import com.github.worldsender.mcanm.common.animation.parts.AnimatedTransform;
 import com.github.worldsender.mcanm.common.animation.stored.RawData;
 import com.github.worldsender.mcanm.common.animation.visitor.IAnimationVisitable;
@@ -7,11 +8,15 @@ import com.github.worldsender.mcanm.common.animation.visitor.IAnimationVisitor;
 import com.github.worldsender.mcanm.common.resource.IResourceLocation;
 import com.github.worldsender.mcanm.common.util.ReloadableData;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-public class StoredAnimation extends ReloadableData<IAnimationVisitable> implements IAnimation {
-    private Map<String, AnimatedTransform> animations;
+public class StoredAnimation extends ReloadableData<IAnimationVisitable> implements IBindableAnimation {
+    /**
+     * Never modified, a reload replaces the whole map
+     */
+    private volatile Map<String, AnimatedTransform> animations;
 
     public StoredAnimation(IResourceLocation resource) {
         super(resource, RawData::retrieveFrom, RawData.MISSING_DATA);
@@ -19,23 +24,26 @@ public class StoredAnimation extends ReloadableData<IAnimationVisitable> impleme
 
     @Override
     protected void preInit(Object... args) {
-        this.animations = new HashMap<>();
+        this.animations = Collections.emptyMap();
     }
 
     @Override
-    public boolean storeCurrentTransformation(String bone, float frame, BoneTransformation transform) {
-        AnimatedTransform anim = this.animations.get(bone);
-        if (anim == null) {
-            return false;
-        }
-        anim.storeTransformAt(frame, transform);
-        return true;
+    public AnimatedTransform getAnimatedTransform(String bone) {
+        return this.animations.get(bone);
     }
 
     @Override
+    @Deprecated
     protected void loadData(IAnimationVisitable data) {
-        animations.clear();
-        data.visitBy(this.new AnimationVisitor());
+        prepareData(data).run();
+    }
+
+    @Override
+    protected Runnable prepareData(IAnimationVisitable data) {
+        AnimationVisitor visitor = this.new AnimationVisitor();
+        data.visitBy(visitor);
+        Map<String, AnimatedTransform> animations = Collections.unmodifiableMap(visitor.visitedAnimations);
+        return () -> this.animations = animations;
     }
 
     private class AnimationVisitor implements IAnimationVisitor {
@@ -52,7 +60,17 @@ public class StoredAnimation extends ReloadableData<IAnimationVisitable> impleme
 
         @Override
         public void visitEnd() {
-            StoredAnimation.this.animations = visitedAnimations;
+            if (MCAnm.logger().isDebugEnabled()) {
+                int constantChannels = 0;
+                for (AnimatedTransform transform : visitedAnimations.values()) {
+                    constantChannels += transform.getConstantChannelCount();
+                }
+                MCAnm.logger().debug(
+                        "Animation {}: {} of {} channels are constant and have been eliminated",
+                        getResourceLocation().getResourceName(),
+                        constantChannels,
+                        visitedAnimations.size() * AnimatedTransform.CHANNEL_COUNT);
+            }
         }
     }
 }
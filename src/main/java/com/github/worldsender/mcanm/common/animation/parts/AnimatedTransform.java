@@ -1,13 +1,15 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.worldsender.mcanm.common.Utils;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
 import com.github.worldsender.mcanm.common.animation.StoredAnimation;
 import com.github.worldsender.mcanm.common.animation.parts.AnimatedValue.AnimatedValueBuilder;
 import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
+import com.github.worldsender.mcanm.common.util.math.Matrix4f;
 import com.github.worldsender.mcanm.common.util.math.Quat4f;
 import com.github.worldsender.mcanm.common.util.math.Vector3f;
 
@@ -17,6 +19,10 @@ import com.github.worldsender.mcanm.common.util.math.Vector3f;
  * @author WorldSEnder
  */
 public class AnimatedTransform {
+    /**
+     * The number of animated values (channels) of a transform, 3 for location, 4 for rotation and 3 for scale.
+     */
+    public static final int CHANNEL_COUNT = 10;
     private AnimatedValue loc_x;
     private AnimatedValue loc_y;
     private AnimatedValue loc_z;
@@ -27,11 +33,30 @@ public class AnimatedTransform {
     private AnimatedValue scale_x;
     private AnimatedValue scale_y;
     private AnimatedValue scale_z;
+    /**
+     * If not null, the rotation is animated by this track instead of quat_x to quat_w
+     */
+    private QuaternionTrack rotation;
     private ThreadLocal<Vector3f> translationBuffer = ThreadLocal.withInitial(Vector3f::new);
     private ThreadLocal<Quat4f> rotationBuffer = ThreadLocal.withInitial(Quat4f::new);
     private ThreadLocal<Vector3f> scaleBuffer = ThreadLocal.withInitial(Vector3f::new);
+    // Set up by compile(), constant channels are evaluated once
+    private int constantChannelCount;
+    private boolean translationConstant;
+    private boolean rotationConstant;
+    private boolean scaleConstant;
+    private boolean scaleUnit;
+    private final Vector3f constantTranslation = new Vector3f();
+    private final Quat4f constantRotation = new Quat4f();
+    private final Vector3f constantScale = new Vector3f();
+    /**
+     * The rotation and scale part of the transform if both are constant, also the translation if that is constant,
+     * too.
+     */
+    private final Matrix4f constantMatrix = new Matrix4f();
+
     /**
-     * Reads a {@link AnimatedTransform} from the {@link DataInputStream} given.
+     * Reads a {@link AnimatedTransform} from the {@link DataInput} given.
      *
      * @param dis
      */
@@ -40,6 +65,61 @@ public class AnimatedTransform {
         quat_w = scale_x = scale_y = scale_z = AnimatedValue.CONSTANT_ONE;
     }
 
+    /**
+     * Finds the constant channels and precomputes the parts of the transformation that only depend on them.
+     */
+    private void compile() {
+        AnimatedValue[] channels = { loc_x, loc_y, loc_z, quat_x, quat_y, quat_z, quat_w, scale_x, scale_y, scale_z };
+        constantChannelCount = 0;
+        for (AnimatedValue channel : channels) {
+            if (channel.isConstant())
+                constantChannelCount++;
+        }
+        translationConstant = loc_x.isConstant() && loc_y.isConstant() && loc_z.isConstant();
+        if (rotation != null) {
+            // quat_x to quat_w are unused constants, only count them if the track is constant, too
+            rotationConstant = rotation.isConstant();
+            if (!rotationConstant)
+                constantChannelCount -= 4;
+        } else {
+            rotationConstant = quat_x.isConstant() && quat_y.isConstant() && quat_z.isConstant() && quat_w.isConstant();
+        }
+        scaleConstant = scale_x.isConstant() && scale_y.isConstant() && scale_z.isConstant();
+        if (translationConstant) {
+            constantTranslation
+                    .set(loc_x.getConstantValue(), loc_y.getConstantValue(), loc_z.getConstantValue());
+        }
+        if (rotationConstant && rotation != null) {
+            rotation.getFirstKey(constantRotation);
+        } else if (rotationConstant) {
+            constantRotation.set(
+                    quat_x.getConstantValue(),
+                    quat_y.getConstantValue(),
+                    quat_z.getConstantValue(),
+                    quat_w.getConstantValue());
+            constantRotation.normalize();
+        }
+        if (scaleConstant) {
+            constantScale.set(scale_x.getConstantValue(), scale_y.getConstantValue(), scale_z.getConstantValue());
+        }
+        scaleUnit = scaleConstant && constantScale.x == 1.0F && constantScale.y == 1.0F && constantScale.z == 1.0F;
+        if (rotationConstant && scaleConstant) {
+            Vector3f translation = translationConstant ? constantTranslation : new Vector3f();
+            Utils.fromRTS(constantRotation, translation, constantScale, constantMatrix);
+        }
+    }
+
+    /**
+     * @return the number of channels that have the same value in every frame and are not evaluated
+     */
+    public int getConstantChannelCount() {
+        return constantChannelCount;
+    }
+
+    private static float valueAt(AnimatedValue value, float frame, int[] hints, int slot) {
+        return hints == null ? value.getValueAt(frame) : value.getValueAt(frame, hints, slot);
+    }
+
     /**
      * Stores the transformation of the bone at a specific point in the animation. This method interpolates between the
      * nearest two key-frames using the correct interpolation mode.
@@ -50,14 +130,67 @@ public class AnimatedTransform {
      * @return
      */
     public void storeTransformAt(float frame, BoneTransformation transform) {
+        storeTransformAt(frame, transform, null, 0);
+    }
+
+    /**
+     * The same as {@link #storeTransformAt(float, BoneTransformation)}, but uses and updates the segment hints of the
+     * channels, stored at offset to offset + {@link #CHANNEL_COUNT} - 1. See {@link EvaluationCursor}.
+     *
+     * @param frame
+     * @param transform
+     * @param hints     the segment hints, <code>null</code> to not use any
+     * @param offset    the offset of the first channel in the hints
+     */
+    public void storeTransformAt(float frame, BoneTransformation transform, int[] hints, int offset) {
+        Matrix4f matrix = transform.matrix;
+        if (rotationConstant && scaleConstant) {
+            // Static or translation-only bone
+            matrix.set(constantMatrix);
+            if (!translationConstant) {
+                matrix.m03 = valueAt(loc_x, frame, hints, offset);
+                matrix.m13 = valueAt(loc_y, frame, hints, offset + 1);
+                matrix.m23 = valueAt(loc_z, frame, hints, offset + 2);
+            }
+            return;
+        }
         Vector3f t = translationBuffer.get();
-        t.set(loc_x.getValueAt(frame), loc_y.getValueAt(frame), loc_z.getValueAt(frame));
+        if (translationConstant) {
+            t.set(constantTranslation);
+        } else {
+            t.set(
+                    valueAt(loc_x, frame, hints, offset),
+                    valueAt(loc_y, frame, hints, offset + 1),
+                    valueAt(loc_z, frame, hints, offset + 2));
+        }
         Quat4f r = rotationBuffer.get();
-        r.set(quat_x.getValueAt(frame), quat_y.getValueAt(frame), quat_z.getValueAt(frame), quat_w.getValueAt(frame));
-        r.normalize();
+        if (rotationConstant) {
+            r.set(constantRotation);
+        } else if (rotation != null) {
+            rotation.getRotationAt(frame, r, hints, offset + 3);
+        } else {
+            r.set(
+                    valueAt(quat_x, frame, hints, offset + 3),
+                    valueAt(quat_y, frame, hints, offset + 4),
+                    valueAt(quat_z, frame, hints, offset + 5),
+                    valueAt(quat_w, frame, hints, offset + 6));
+            r.normalize();
+        }
+        if (scaleUnit) {
+            // Rotating bone, skip the scaling
+            matrix.set(r, t, 1.0F);
+            return;
+        }
         Vector3f s = scaleBuffer.get();
-        s.set(scale_x.getValueAt(frame), scale_y.getValueAt(frame), scale_z.getValueAt(frame));
-        Utils.fromRTS(r, t, s, transform.matrix);
+        if (scaleConstant) {
+            s.set(constantScale);
+        } else {
+            s.set(
+                    valueAt(scale_x, frame, hints, offset + 7),
+                    valueAt(scale_y, frame, hints, offset + 8),
+                    valueAt(scale_z, frame, hints, offset + 9));
+        }
+        Utils.fromRTS(r, t, s, matrix);
     }
 
     public static class AnimatedTransformBuilder {
@@ -69,7 +202,7 @@ public class AnimatedTransform {
             value = new AnimatedTransform();
         }
 
-        public AnimatedTransformBuilder fromStream(DataInputStream dis) throws IOException, ModelFormatException {
+        public AnimatedTransformBuilder fromStream(DataInput dis) throws IOException, ModelFormatException {
             checkAvailable();
             value.loc_x = builder.setDefaultValue(0.0f).fromStream(dis).buildAndReset();
             value.loc_y = builder.setDefaultValue(0.0f).fromStream(dis).buildAndReset();
@@ -84,8 +217,27 @@ public class AnimatedTransform {
             return this;
         }
 
+        /**
+         * Reads a transform in which the rotation is given as a {@link QuaternionTrack} instead of four separate
+         * values.
+         */
+        public AnimatedTransformBuilder fromStreamWithQuaternionTrack(DataInput dis)
+                throws IOException,
+                ModelFormatException {
+            checkAvailable();
+            value.loc_x = builder.setDefaultValue(0.0f).fromStream(dis).buildAndReset();
+            value.loc_y = builder.setDefaultValue(0.0f).fromStream(dis).buildAndReset();
+            value.loc_z = builder.setDefaultValue(0.0f).fromStream(dis).buildAndReset();
+            value.rotation = QuaternionTrack.fromStream(dis);
+            value.scale_x = builder.setDefaultValue(1.0f).fromStream(dis).buildAndReset();
+            value.scale_y = builder.setDefaultValue(1.0f).fromStream(dis).buildAndReset();
+            value.scale_z = builder.setDefaultValue(1.0f).fromStream(dis).buildAndReset();
+            return this;
+        }
+
         public AnimatedTransform buildAndReset() {
             AnimatedTransform ret = value;
+            ret.compile();
             return ret;
         }
     }
@@ -1,11 +1,12 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
 
@@ -17,7 +18,11 @@ public class AnimatedValue {
      */
     private List<Spline> splines;
     /**
-     * Reads the animated value from the {@link DataInputStream} given using
+     * The compiled splines, <code>null</code> if the splines couldn't be compiled.
+     */
+    private KeyframeTrack track;
+    /**
+     * Reads the animated value from the {@link DataInput} given using
      * keyframes. That are time, value pairs. Each pair forms a keyframe.
      * Between successive two keyframes is a spline that can be the graph of any
      * real-value-function.<br>
@@ -41,6 +46,11 @@ public class AnimatedValue {
      * @return the corresponding y-value
      */
     public float getValueAt(float time) {
+        KeyframeTrack track = this.track;
+        if (track != null) {
+            int segment = track.findSegment(time);
+            return segment < 0 ? this.defaultValue : track.evaluate(segment, time);
+        }
         for (Spline spline : this.splines) {
             if (spline.isInRange(time))
                 return spline.getValueAt(time);
@@ -49,6 +59,47 @@ public class AnimatedValue {
         return this.defaultValue;
     }
 
+    /**
+     * The same as {@link #getValueAt(float)}, but uses and updates the segment hint at the slot given. See
+     * {@link EvaluationCursor}.
+     *
+     * @param time
+     *            the time/x-value on the curve
+     * @param hints
+     *            the segment hints
+     * @param slot
+     *            the slot of this value in the hints
+     * @return the corresponding y-value
+     */
+    public float getValueAt(float time, int[] hints, int slot) {
+        KeyframeTrack track = this.track;
+        if (track == null) {
+            return getValueAt(time);
+        }
+        int segment = track.findSegment(time, hints[slot]);
+        if (segment < 0) {
+            return this.defaultValue;
+        }
+        hints[slot] = segment;
+        return track.evaluate(segment, time);
+    }
+
+    /**
+     * Checks if this value is the same at every frame. Constant values can be evaluated once when they are loaded.
+     *
+     * @return true if the value doesn't change, see {@link #getConstantValue()}
+     */
+    public boolean isConstant() {
+        return splines.isEmpty() || (track != null && track.isConstant());
+    }
+
+    /**
+     * @return the value of a constant value, undefined if it is not constant
+     */
+    public float getConstantValue() {
+        return splines.isEmpty() ? this.defaultValue : track.getConstantValue();
+    }
+
     public static class AnimatedValueBuilder {
         private AnimatedValue value = null;
 
@@ -61,7 +112,7 @@ public class AnimatedValue {
             return this;
         }
 
-        public AnimatedValueBuilder fromStream(DataInputStream dis) throws IOException, ModelFormatException {
+        public AnimatedValueBuilder fromStream(DataInput dis) throws IOException, ModelFormatException {
             if (value == null) {
                 throw new IllegalStateException("Can only red from stream with after a default value has been set");
             }
@@ -97,6 +148,7 @@ public class AnimatedValue {
             AnimatedValue ret = value;
             value = null;
             ret.splines = Collections.unmodifiableList(ret.splines);
+            ret.track = KeyframeTrack.compile(ret.splines);
             return ret;
         }
     }
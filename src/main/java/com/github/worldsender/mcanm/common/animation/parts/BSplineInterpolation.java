@@ -1,7 +1,7 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
@@ -10,23 +10,116 @@ import com.github.worldsender.mcanm.common.util.math.Vector2f;
 public class BSplineInterpolation extends Spline {
     public static final IInterpolationSplineFactory factory = new IInterpolationSplineFactory() {
         @Override
-        public Spline newSpline(Vector2f left, Vector2f right, DataInputStream additionalData) throws IOException {
+        public Spline newSpline(Vector2f left, Vector2f right, DataInput additionalData) throws IOException {
             Vector2f leftHandle = Spline.readPoint(additionalData);
             Vector2f rightHandle = Spline.readPoint(additionalData);
             return new BSplineInterpolation(left, leftHandle, rightHandle, right);
         }
     };
 
+    /**
+     * Layout of the precomputed coefficients, x(t) = X0 + X1 * t + X2 * t^2 + X3 * t^3 and the same for y
+     */
+    private static final int X0 = 0, X_END = 1, X1 = 2, X2 = 3, X3 = 4;
+    private static final int Y0 = 5, Y_END = 6, Y1 = 7, Y2 = 8, Y3 = 9;
+    private static final int COEFFICIENT_COUNT = 10;
+    /**
+     * The tolerance when solving x(t) = frame, relative to the width of the spline. At this tolerance, the value
+     * differs from the exact solution by (much) less than 1e-4 of the value range of the spline.
+     */
+    private static final double SOLVE_TOLERANCE = 1e-7;
+    private static final int MAX_ITERATIONS = 24;
+
     private Vector2f left;
     private Vector2f leftHandle;
     private Vector2f rightHandle;
     private Vector2f right;
+    private final float[] coefficients = new float[COEFFICIENT_COUNT];
+    /**
+     * If x(t) is monotonic, x(t) = frame has exactly one solution and we can use a fast solver
+     */
+    private final boolean isMonotonic;
 
     public BSplineInterpolation(Vector2f left, Vector2f leftHandle, Vector2f rightHandle, Vector2f right) {
         this.left = left;
         this.leftHandle = leftHandle;
         this.rightHandle = rightHandle;
         this.right = right;
+        float[] c = this.coefficients;
+        c[X0] = left.x;
+        c[X_END] = right.x;
+        c[X1] = 3.0f * (leftHandle.x - left.x);
+        c[X2] = 3.0f * (left.x - 2.0f * leftHandle.x + rightHandle.x);
+        c[X3] = right.x - left.x + 3.0f * (leftHandle.x - rightHandle.x);
+        c[Y0] = left.y;
+        c[Y_END] = right.y;
+        c[Y1] = 3.0f * (leftHandle.y - left.y);
+        c[Y2] = 3.0f * (left.y - 2.0f * leftHandle.y + rightHandle.y);
+        c[Y3] = right.y - left.y + 3.0f * (leftHandle.y - rightHandle.y);
+        this.isMonotonic = isMonotonic(left.x, leftHandle.x, rightHandle.x, right.x);
+    }
+
+    /**
+     * Checks if the bezier curve in x is strictly increasing. The derivative is a quadratic bezier curve with control
+     * points d0, d1, d2 which is non-negative iff d0, d2 >= 0 and d1 >= 0 or d1^2 <= d0 * d2.
+     */
+    private static boolean isMonotonic(float x1, float x2, float x3, float x4) {
+        if (!(x1 < x4))
+            return false;
+        double d0 = x2 - x1;
+        double d1 = x3 - x2;
+        double d2 = x4 - x3;
+        return d0 >= 0 && d2 >= 0 && (d1 >= 0 || d1 * d1 <= d0 * d2);
+    }
+
+    /**
+     * Checks if a spline compiled by {@link #compileTo(float[], int)} has the value given at every frame.
+     */
+    static boolean isConstant(float[] c, int o, float value) {
+        return c[o + Y0] == value && c[o + Y_END] == value && c[o + Y1] == 0 && c[o + Y2] == 0 && c[o + Y3] == 0;
+    }
+
+    /**
+     * Evaluates a spline from the coefficients precomputed by {@link #compileTo(float[], int)}, assuming x(t) is
+     * monotonic. The parameter t with x(t) = frame is found with Newton's method, safeguarded by bisection, so that
+     * it always converges.
+     *
+     * @param c     the coefficients
+     * @param o     the offset of the first coefficient
+     * @param frame the frame, in the range of the spline
+     * @return the value at the frame
+     */
+    static float evaluate(float[] c, int o, float frame) {
+        float x0 = c[o + X0], xEnd = c[o + X_END];
+        if (frame == x0)
+            return c[o + Y0];
+        if (frame == xEnd)
+            return c[o + Y_END];
+        double x1 = c[o + X1], x2 = c[o + X2], x3 = c[o + X3];
+        double target = frame - x0;
+        double width = xEnd - x0;
+        double tolerance = SOLVE_TOLERANCE * width;
+        double lo = 0, hi = 1;
+        // Good initial guess for handles that are evenly spread
+        double t = Math.min(Math.max(target / width, 0), 1);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double fx = ((x3 * t + x2) * t + x1) * t - target;
+            if (Math.abs(fx) <= tolerance)
+                break;
+            if (fx < 0) {
+                lo = t;
+            } else {
+                hi = t;
+            }
+            double dx = (3 * x3 * t + 2 * x2) * t + x1;
+            double next = t - fx / dx;
+            // Also catches dx == 0
+            if (!(next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+            }
+            t = next;
+        }
+        return (float) (((c[o + Y3] * t + c[o + Y2]) * t + c[o + Y1]) * t + c[o + Y0]);
     }
 
     /**
@@ -180,6 +273,8 @@ public class BSplineInterpolation extends Spline {
 
     @Override
     public float getValueAt(float frame) {
+        if (isMonotonic)
+            return evaluate(coefficients, 0, frame);
         if (frame == this.left.x)
             return this.left.y;
         if (frame == this.right.x)
@@ -187,4 +282,23 @@ public class BSplineInterpolation extends Spline {
         double t = findZero(this.left.x, this.leftHandle.x, this.rightHandle.x, this.right.x, frame);
         return calcValue(this.left.y, this.leftHandle.y, this.rightHandle.y, this.right.y, t);
     }
+
+    @Override
+    public float getLowerBound() {
+        return this.left.x;
+    }
+
+    @Override
+    public float getUpperBound() {
+        return this.right.x;
+    }
+
+    @Override
+    public byte compileTo(float[] coefficients, int offset) {
+        if (!isMonotonic)
+            // Needs the general solver to pick the same root as before
+            return COMPILED_CUSTOM;
+        System.arraycopy(this.coefficients, 0, coefficients, offset, COEFFICIENT_COUNT);
+        return COMPILED_BEZIER;
+    }
 }
@@ -1,7 +1,7 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
 
@@ -17,7 +17,7 @@ import com.github.worldsender.mcanm.common.util.math.Vector2f;
 public class ConstantEaseIn extends Spline {
     public static final IEaseInSplineFactory factory = new IEaseInSplineFactory() {
         @Override
-        public Spline newSpline(Vector2f right, DataInputStream additionalData) {
+        public Spline newSpline(Vector2f right, DataInput additionalData) {
             return new ConstantEaseIn(right);
         }
     };
@@ -36,4 +36,20 @@ public class ConstantEaseIn extends Spline {
     public float getValueAt(float frame) {
         return this.right.y;
     }
+
+    @Override
+    public float getLowerBound() {
+        return Float.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public float getUpperBound() {
+        return this.right.x;
+    }
+
+    @Override
+    public byte compileTo(float[] coefficients, int offset) {
+        coefficients[offset] = this.right.y;
+        return COMPILED_CONSTANT;
+    }
 }
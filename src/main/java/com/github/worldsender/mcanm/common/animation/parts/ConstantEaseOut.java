@@ -1,7 +1,7 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
 
@@ -10,7 +10,7 @@ import com.github.worldsender.mcanm.common.util.math.Vector2f;
 public class ConstantEaseOut extends Spline {
     public static final IEaseOutSplineFactory factory = new IEaseOutSplineFactory() {
         @Override
-        public Spline newSpline(Vector2f left, DataInputStream additionalData) {
+        public Spline newSpline(Vector2f left, DataInput additionalData) {
             return new ConstantEaseOut(left);
         }
     };
@@ -30,4 +30,20 @@ public class ConstantEaseOut extends Spline {
     public float getValueAt(float frame) {
         return left.y;
     }
+
+    @Override
+    public float getLowerBound() {
+        return left.x;
+    }
+
+    @Override
+    public float getUpperBound() {
+        return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public byte compileTo(float[] coefficients, int offset) {
+        coefficients[offset] = left.y;
+        return COMPILED_CONSTANT;
+    }
 }
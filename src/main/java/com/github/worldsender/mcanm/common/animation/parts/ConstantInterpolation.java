@@ -1,7 +1,7 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
 
@@ -17,7 +17,7 @@ import com.github.worldsender.mcanm.common.util.math.Vector2f;
 public class ConstantInterpolation extends Spline {
     public static final IInterpolationSplineFactory factory = new IInterpolationSplineFactory() {
         @Override
-        public Spline newSpline(Vector2f left, Vector2f right, DataInputStream additionalData) {
+        public Spline newSpline(Vector2f left, Vector2f right, DataInput additionalData) {
             return new ConstantInterpolation(left, right);
         }
     };
@@ -39,4 +39,22 @@ public class ConstantInterpolation extends Spline {
     public float getValueAt(float frame) {
         return frame < this.right.x ? this.left.y : this.right.y;
     }
+
+    @Override
+    public float getLowerBound() {
+        return this.left.x;
+    }
+
+    @Override
+    public float getUpperBound() {
+        return this.right.x;
+    }
+
+    @Override
+    public byte compileTo(float[] coefficients, int offset) {
+        coefficients[offset] = this.right.x;
+        coefficients[offset + 1] = this.left.y;
+        coefficients[offset + 2] = this.right.y;
+        return COMPILED_STEP;
+    }
 }
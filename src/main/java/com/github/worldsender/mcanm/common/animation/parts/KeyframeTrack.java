@@ -0,0 +1,211 @@
+package com.github.worldsender.mcanm.common.animation.parts;
+
+import java.util.List;
+
+/**
+ * The compiled form of the splines of an {@link AnimatedValue}. The range and coefficients of every spline are stored
+ * in primitive arrays, the spline for a frame is found with a binary search over the upper bounds of the splines.<br>
+ * Evaluation gives the same result as asking the first spline that is in range for the frame, as long as the lower and
+ * upper bounds of the splines are both sorted ascending. Use {@link #compile(List)} to check this.
+ *
+ * @author WorldSEnder
+ */
+public final class KeyframeTrack {
+    private final float[] lowerBounds;
+    private final float[] upperBounds;
+    private final byte[] kinds;
+    private final float[] coefficients;
+    /**
+     * For splines with kind {@link Spline#COMPILED_CUSTOM}
+     */
+    private final Spline[] splines;
+    private boolean isConstant;
+    private float constantValue;
+
+    private KeyframeTrack(int segmentCount) {
+        this.lowerBounds = new float[segmentCount];
+        this.upperBounds = new float[segmentCount];
+        this.kinds = new byte[segmentCount];
+        this.coefficients = new float[segmentCount * Spline.COMPILED_STRIDE];
+        this.splines = new Spline[segmentCount];
+    }
+
+    /**
+     * Compiles the splines given.
+     *
+     * @param splines the splines, in the order they were read
+     * @return the compiled track or <code>null</code> if the splines don't report their bounds or are not sorted
+     */
+    public static KeyframeTrack compile(List<Spline> splines) {
+        int count = splines.size();
+        KeyframeTrack track = new KeyframeTrack(count);
+        float lastLower = Float.NEGATIVE_INFINITY;
+        float lastUpper = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            Spline spline = splines.get(i);
+            float lower = spline.getLowerBound();
+            float upper = spline.getUpperBound();
+            // Also catches NaN
+            if (!(lower >= lastLower) || !(upper >= lastUpper)) {
+                return null;
+            }
+            track.lowerBounds[i] = lastLower = lower;
+            track.upperBounds[i] = lastUpper = upper;
+            byte kind = spline.compileTo(track.coefficients, i * Spline.COMPILED_STRIDE);
+            track.kinds[i] = kind;
+            if (kind == Spline.COMPILED_CUSTOM) {
+                track.splines[i] = spline;
+            }
+        }
+        track.checkConstant();
+        return track;
+    }
+
+    /**
+     * A track is constant if its segments cover all frames without gaps and every segment has the same value
+     * everywhere.
+     */
+    private void checkConstant() {
+        int count = kinds.length;
+        isConstant = false;
+        if (count == 0 || lowerBounds[0] != Float.NEGATIVE_INFINITY
+                || upperBounds[count - 1] != Float.POSITIVE_INFINITY) {
+            return;
+        }
+        // The first segment is usually the ease-in
+        if (kinds[0] != Spline.COMPILED_CONSTANT) {
+            return;
+        }
+        float value = coefficients[0];
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && lowerBounds[i] > upperBounds[i - 1]) {
+                return;
+            }
+            float[] c = coefficients;
+            int o = i * Spline.COMPILED_STRIDE;
+            boolean segmentConstant;
+            switch (kinds[i]) {
+            case Spline.COMPILED_CONSTANT:
+                segmentConstant = c[o] == value;
+                break;
+            case Spline.COMPILED_STEP:
+                segmentConstant = c[o + 1] == value && c[o + 2] == value;
+                break;
+            case Spline.COMPILED_LINEAR:
+                segmentConstant = c[o + 1] == value && c[o + 3] == value;
+                break;
+            case Spline.COMPILED_BEZIER:
+                segmentConstant = BSplineInterpolation.isConstant(c, o, value);
+                break;
+            default:
+                segmentConstant = false;
+            }
+            if (!segmentConstant) {
+                return;
+            }
+        }
+        isConstant = true;
+        constantValue = value;
+    }
+
+    /**
+     * @return true if the track has the same value for every frame, see {@link #getConstantValue()}
+     */
+    public boolean isConstant() {
+        return isConstant;
+    }
+
+    /**
+     * @return the value of a constant track, undefined if the track is not constant
+     */
+    public float getConstantValue() {
+        return constantValue;
+    }
+
+    public int getSegmentCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Finds the segment for the frame given.
+     *
+     * @param frame the frame
+     * @return the index of the segment or -1 if no segment is in range
+     */
+    public int findSegment(float frame) {
+        // First segment with upperBound >= frame
+        int low = 0, high = upperBounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (upperBounds[mid] < frame) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == upperBounds.length || !(lowerBounds[low] <= frame)) {
+            return -1;
+        }
+        return low;
+    }
+
+    /**
+     * The same as {@link #findSegment(float)}, but first checks the segment given as a hint and the one after it. If
+     * the frame advances only a little between calls, the segment is found in constant time.
+     *
+     * @param frame the frame
+     * @param hint  the segment found in the last call
+     * @return the index of the segment or -1 if no segment is in range
+     */
+    public int findSegment(float frame, int hint) {
+        int count = upperBounds.length;
+        if (hint >= 0 && hint < count) {
+            if (isSegmentFor(hint, frame)) {
+                return hint;
+            }
+            if (hint + 1 < count && isSegmentFor(hint + 1, frame)) {
+                return hint + 1;
+            }
+        }
+        return findSegment(frame);
+    }
+
+    /**
+     * Checks if the segment is the first segment that is in range for the frame.
+     */
+    private boolean isSegmentFor(int segment, float frame) {
+        return upperBounds[segment] >= frame && lowerBounds[segment] <= frame
+                && (segment == 0 || upperBounds[segment - 1] < frame);
+    }
+
+    /**
+     * Evaluates the segment given at a frame.
+     *
+     * @param segment the segment, previously found with {@link #findSegment(float)}
+     * @param frame   the frame
+     * @return the value
+     */
+    public float evaluate(int segment, float frame) {
+        float[] c = coefficients;
+        int o = segment * Spline.COMPILED_STRIDE;
+        switch (kinds[segment]) {
+        case Spline.COMPILED_CONSTANT:
+            return c[o];
+        case Spline.COMPILED_STEP:
+            return frame < c[o] ? c[o + 1] : c[o + 2];
+        case Spline.COMPILED_LINEAR: {
+            if (c[o + 1] == c[o + 3]) {
+                // Equal keys, interpolating could be an ulp off
+                return c[o + 1];
+            }
+            float split = c[o + 2] - c[o];
+            return (c[o + 2] - frame) / (split) * c[o + 1] + //
+                    (frame - c[o]) / (split) * c[o + 3];
+        }
+        case Spline.COMPILED_BEZIER:
+            return BSplineInterpolation.evaluate(c, o, frame);
+        default:
+            return splines[segment].getValueAt(frame);
+        }
+    }
+}
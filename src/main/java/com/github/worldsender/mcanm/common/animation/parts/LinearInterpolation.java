@@ -1,7 +1,7 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 
 import com.github.worldsender.mcanm.common.util.math.Vector2f;
 
@@ -18,7 +18,7 @@ import com.github.worldsender.mcanm.common.util.math.Vector2f;
 public class LinearInterpolation extends Spline {
     public static final IInterpolationSplineFactory factory = new IInterpolationSplineFactory() {
         @Override
-        public Spline newSpline(Vector2f left, Vector2f right, DataInputStream additionalData) {
+        public Spline newSpline(Vector2f left, Vector2f right, DataInput additionalData) {
             return new LinearInterpolation(left, right);
         }
     };
@@ -42,4 +42,23 @@ public class LinearInterpolation extends Spline {
         return (this.right.x - frame) / (split) * this.left.y + //
                 (frame - this.left.x) / (split) * this.right.y;
     }
+
+    @Override
+    public float getLowerBound() {
+        return this.left.x;
+    }
+
+    @Override
+    public float getUpperBound() {
+        return this.right.x;
+    }
+
+    @Override
+    public byte compileTo(float[] coefficients, int offset) {
+        coefficients[offset] = this.left.x;
+        coefficients[offset + 1] = this.left.y;
+        coefficients[offset + 2] = this.right.x;
+        coefficients[offset + 3] = this.right.y;
+        return COMPILED_LINEAR;
+    }
 }
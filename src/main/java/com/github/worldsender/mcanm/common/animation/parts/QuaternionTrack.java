@@ -0,0 +1,196 @@
+package com.github.worldsender.mcanm.common.animation.parts;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
+import com.github.worldsender.mcanm.common.util.math.Quat4f;
+
+/**
+ * A rotation animated with keyframed quaternions. Contrary to animating the four components as separate
+ * {@link AnimatedValue}s, the quaternions are interpolated as a whole, so one lookup and one interpolation give the
+ * rotation at a frame. Before the first and after the last keyframe the rotation is held constant.<br>
+ * The keys are normalized when loading and flipped into the same hemisphere as the key before them so that the
+ * interpolation always takes the shortest path.
+ *
+ * @author WorldSEnder
+ */
+public final class QuaternionTrack {
+    public static final byte INTERPOLATION_STEP = 0;
+    public static final byte INTERPOLATION_NLERP = 1;
+    public static final byte INTERPOLATION_SLERP = 2;
+    /**
+     * Above this cosine between two keys, slerp falls back to nlerp to avoid dividing by a tiny sine.
+     */
+    private static final float SLERP_THRESHOLD = 0.9995F;
+
+    public static final QuaternionTrack IDENTITY = new QuaternionTrack(new float[] { 0 }, new float[] { 0, 0, 0, 1 },
+            new byte[] { INTERPOLATION_STEP });
+
+    private final float[] frames;
+    private final float[] keys;
+    /**
+     * The interpolation used from key i - 1 to key i. The entry for the first key is unused.
+     */
+    private final byte[] interpolations;
+    private final boolean isConstant;
+
+    private QuaternionTrack(float[] frames, float[] keys, byte[] interpolations) {
+        this.frames = frames;
+        this.keys = keys;
+        this.interpolations = interpolations;
+        boolean constant = true;
+        for (int i = 4; i < keys.length && constant; i++) {
+            constant = keys[i] == keys[i % 4];
+        }
+        this.isConstant = constant;
+    }
+
+    /**
+     * Reads a track from the stream. The format is the number of keys as an unsigned short, followed by the keys. Each
+     * key is its frame and the x, y, z and w component of the quaternion as floats. Every key but the first is preceded
+     * by a byte telling how it is interpolated from the key before.<br>
+     * A track without keys is the identity rotation.
+     *
+     * @param dis the stream to read from
+     * @return the track
+     */
+    public static QuaternionTrack fromStream(DataInput dis) throws IOException, ModelFormatException {
+        int keyCount = dis.readUnsignedShort();
+        if (keyCount == 0) {
+            return IDENTITY;
+        }
+        float[] frames = new float[keyCount];
+        float[] keys = new float[keyCount * 4];
+        byte[] interpolations = new byte[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            if (i > 0) {
+                byte interpolation = dis.readByte();
+                if (interpolation != INTERPOLATION_STEP && interpolation != INTERPOLATION_NLERP
+                        && interpolation != INTERPOLATION_SLERP) {
+                    throw new ModelFormatException("Unknown quaternion interpolation mode " + interpolation);
+                }
+                interpolations[i] = interpolation;
+            }
+            float frame = dis.readFloat();
+            if (i > 0 && !(frame >= frames[i - 1])) {
+                throw new ModelFormatException("Quaternion keyframes must be sorted by frame");
+            }
+            frames[i] = frame;
+            int o = 4 * i;
+            float x = dis.readFloat(), y = dis.readFloat(), z = dis.readFloat(), w = dis.readFloat();
+            float norm = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+            if (!(norm > 0)) {
+                throw new ModelFormatException("Quaternion keyframe of zero length");
+            }
+            if (i > 0 && x * keys[o - 4] + y * keys[o - 3] + z * keys[o - 2] + w * keys[o - 1] < 0) {
+                // Same rotation, but the shorter way
+                norm = -norm;
+            }
+            keys[o] = x / norm;
+            keys[o + 1] = y / norm;
+            keys[o + 2] = z / norm;
+            keys[o + 3] = w / norm;
+        }
+        return new QuaternionTrack(frames, keys, interpolations);
+    }
+
+    /**
+     * @return true if all keys are the same rotation
+     */
+    public boolean isConstant() {
+        return isConstant;
+    }
+
+    /**
+     * Stores the (normalized) first key into the quaternion given. For constant tracks, this is the rotation at every
+     * frame.
+     */
+    public void getFirstKey(Quat4f out) {
+        out.set(keys[0], keys[1], keys[2], keys[3]);
+    }
+
+    /**
+     * Finds the last key at or before the frame given.
+     *
+     * @return the index of the key, -1 if the frame is before the first key
+     */
+    private int findKey(float frame, int hint) {
+        int count = frames.length;
+        if (hint >= 0 && hint < count && frames[hint] <= frame) {
+            // Advancing playback, usually in the same or the next segment
+            if (hint + 1 == count || frame < frames[hint + 1]) {
+                return hint;
+            }
+            if (hint + 2 == count || frame < frames[hint + 2]) {
+                return hint + 1;
+            }
+        }
+        // Last key with frames[key] <= frame
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (frames[mid] <= frame) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Stores the normalized rotation at the frame into out.
+     *
+     * @param frame the frame
+     * @param out   the quaternion to store the rotation into
+     */
+    public void getRotationAt(float frame, Quat4f out) {
+        getRotationAt(frame, out, null, 0);
+    }
+
+    /**
+     * The same as {@link #getRotationAt(float, Quat4f)}, but uses and updates a segment hint, see
+     * {@link com.github.worldsender.mcanm.common.animation.EvaluationCursor}.
+     *
+     * @param frame the frame
+     * @param out   the quaternion to store the rotation into
+     * @param hints the hints, can be <code>null</code>
+     * @param slot  the slot of this track in the hints
+     */
+    public void getRotationAt(float frame, Quat4f out, int[] hints, int slot) {
+        int key = findKey(frame, hints == null ? -1 : hints[slot]);
+        if (key < 0) {
+            getFirstKey(out);
+            return;
+        }
+        if (hints != null) {
+            hints[slot] = key;
+        }
+        int o = 4 * key;
+        if (key + 1 == frames.length || interpolations[key + 1] == INTERPOLATION_STEP) {
+            out.set(keys[o], keys[o + 1], keys[o + 2], keys[o + 3]);
+            return;
+        }
+        float alpha = (frame - frames[key]) / (frames[key + 1] - frames[key]);
+        float x0 = keys[o], y0 = keys[o + 1], z0 = keys[o + 2], w0 = keys[o + 3];
+        float x1 = keys[o + 4], y1 = keys[o + 5], z1 = keys[o + 6], w1 = keys[o + 7];
+        float s0 = 1.0F - alpha, s1 = alpha;
+        if (interpolations[key + 1] == INTERPOLATION_SLERP) {
+            // Keys are in the same hemisphere, so cos >= 0
+            float cos = x0 * x1 + y0 * y1 + z0 * z1 + w0 * w1;
+            if (cos < SLERP_THRESHOLD) {
+                float angle = (float) Math.acos(cos);
+                float invSin = 1.0F / (float) Math.sin(angle);
+                s0 = (float) Math.sin(s0 * angle) * invSin;
+                s1 = (float) Math.sin(s1 * angle) * invSin;
+            }
+        }
+        float x = s0 * x0 + s1 * x1;
+        float y = s0 * y0 + s1 * y1;
+        float z = s0 * z0 + s1 * z1;
+        float w = s0 * w0 + s1 * w1;
+        float invNorm = 1.0F / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+        out.set(x * invNorm, y * invNorm, z * invNorm, w * invNorm);
+    }
+}
@@ -1,6 +1,6 @@
 package com.github.worldsender.mcanm.common.animation.parts;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +19,18 @@ public abstract class Spline {
     public static final byte INTERPOLATION_LINEAR = 9;
     public static final byte INTERPOLATION_BSPLINE = 10;
     public static final byte EASE_OUT_CONST = 16;
+    /**
+     * Compiled kinds, see {@link #compileTo(float[], int)}
+     */
+    public static final byte COMPILED_CUSTOM = 0;
+    public static final byte COMPILED_CONSTANT = 1;
+    public static final byte COMPILED_STEP = 2;
+    public static final byte COMPILED_LINEAR = 3;
+    public static final byte COMPILED_BEZIER = 4;
+    /**
+     * The number of floats a spline can use when compiling itself.
+     */
+    public static final int COMPILED_STRIDE = 10;
     private static Map<Byte, IEaseInSplineFactory> ease_in_factories;
     private static Map<Byte, IInterpolationSplineFactory> interpolation_factories;
     private static Map<Byte, IEaseOutSplineFactory> ease_out_factories;
@@ -55,12 +67,12 @@ public abstract class Spline {
      *
      * @param descr the read descriminator byte
      * @param right right point of this spline
-     * @param dis   a {@link DataInputStream} to read additional data from
+     * @param dis   a {@link DataInput} to read additional data from
      * @return
      * @throws ModelFormatException
      * @throws IOException
      */
-    public static Spline easeIn(byte descr, Vector2f right, DataInputStream dis)
+    public static Spline easeIn(byte descr, Vector2f right, DataInput dis)
             throws ModelFormatException,
             IOException {
         IEaseInSplineFactory factory = ease_in_factories.get(descr);
@@ -91,12 +103,12 @@ public abstract class Spline {
      * @param descr the read descriminator byte
      * @param left  left point of this spline
      * @param right right point of this spline
-     * @param dis   a {@link DataInputStream} to read additional data from
+     * @param dis   a {@link DataInput} to read additional data from
      * @return
      * @throws ModelFormatException
      * @throws IOException
      */
-    public static Spline interpolating(byte descr, Vector2f left, Vector2f right, DataInputStream dis)
+    public static Spline interpolating(byte descr, Vector2f left, Vector2f right, DataInput dis)
             throws ModelFormatException,
             IOException {
         IInterpolationSplineFactory factory = interpolation_factories.get(descr);
@@ -125,12 +137,12 @@ public abstract class Spline {
      *
      * @param descr the read descriminator byte
      * @param left  right point of this spline
-     * @param dis   a {@link DataInputStream} to read additional data from
+     * @param dis   a {@link DataInput} to read additional data from
      * @return
      * @throws ModelFormatException
      * @throws IOException
      */
-    public static Spline easeOut(byte descr, Vector2f left, DataInputStream dis)
+    public static Spline easeOut(byte descr, Vector2f left, DataInput dis)
             throws ModelFormatException,
             IOException {
         IEaseOutSplineFactory factory = ease_out_factories.get(descr);
@@ -140,11 +152,11 @@ public abstract class Spline {
     }
 
     /**
-     * Utility function for reading a sole point from the {@link DataInputStream}.
+     * Utility function for reading a sole point from the {@link DataInput}.
      *
      * @throws IOException if an {@link IOException} occurs.
      */
-    public static Vector2f readPoint(DataInputStream dis) throws IOException {
+    public static Vector2f readPoint(DataInput dis) throws IOException {
         float x = dis.readFloat();
         float y = dis.readFloat();
         return new Vector2f(x, y);
@@ -168,43 +180,77 @@ public abstract class Spline {
      */
     public abstract float getValueAt(float frame);
 
+    /**
+     * The smallest frame this spline is in range for. Splines that can't tell return {@link Float#NaN}, which forces
+     * curves containing them to search for the spline linearly.
+     *
+     * @return the lower bound of {@link #isInRange(float)}, possibly {@link Float#NEGATIVE_INFINITY}
+     */
+    public float getLowerBound() {
+        return Float.NaN;
+    }
+
+    /**
+     * The largest frame this spline is in range for. Splines that can't tell return {@link Float#NaN}, which forces
+     * curves containing them to search for the spline linearly.
+     *
+     * @return the upper bound of {@link #isInRange(float)}, possibly {@link Float#POSITIVE_INFINITY}
+     */
+    public float getUpperBound() {
+        return Float.NaN;
+    }
+
+    /**
+     * Stores the coefficients of this spline into the array given, starting at offset and using at most
+     * {@link #COMPILED_STRIDE} floats. The returned kind tells how the coefficients are interpreted, see
+     * {@link KeyframeTrack}. Splines that return {@link #COMPILED_CUSTOM} will be evaluated with
+     * {@link #getValueAt(float)}.
+     *
+     * @param coefficients the array to store the coefficients into
+     * @param offset       the offset of the first coefficient
+     * @return the kind of the compiled spline
+     */
+    public byte compileTo(float[] coefficients, int offset) {
+        return COMPILED_CUSTOM;
+    }
+
     public interface IInterpolationSplineFactory {
         /**
          * This function should construct a new Spline between the two points given the left and right point, reading
-         * additional data from the {@link DataInputStream} given.
+         * additional data from the {@link DataInput} given.
          *
          * @param left           the left control-point of this spline
          * @param right          the right control-point of this spline
          * @param additionalData read additional data from this
          * @return the constructed spline. Not <code>null</code>
-         * @throws IOException if an {@link IOException} results from reading from the {@link DataInputStream} given
+         * @throws IOException if an {@link IOException} results from reading from the {@link DataInput} given
          */
-        Spline newSpline(Vector2f left, Vector2f right, DataInputStream additionalData) throws IOException;
+        Spline newSpline(Vector2f left, Vector2f right, DataInput additionalData) throws IOException;
     }
 
     public interface IEaseInSplineFactory {
         /**
          * This function should construct a new Spline from -infinity to the right point, reading additional data from
-         * the {@link DataInputStream} given.
+         * the {@link DataInput} given.
          *
          * @param right          the right control-point of this spline
          * @param additionalData read additional data from this
          * @return the constructed spline. Not <code>null</code>
-         * @throws IOException if an {@link IOException} results from reading from the {@link DataInputStream} given
+         * @throws IOException if an {@link IOException} results from reading from the {@link DataInput} given
          */
-        Spline newSpline(Vector2f right, DataInputStream additionalData) throws IOException;
+        Spline newSpline(Vector2f right, DataInput additionalData) throws IOException;
     }
 
     public interface IEaseOutSplineFactory {
         /**
          * This function should construct a new Spline from the left point towards infinity, reading additional data
-         * from the {@link DataInputStream} given.
+         * from the {@link DataInput} given.
          *
          * @param left           the right control-point of this spline
          * @param additionalData read additional data from this
          * @return the constructed spline. Not <code>null</code>
-         * @throws IOException if an {@link IOException} results from reading from the {@link DataInputStream} given
+         * @throws IOException if an {@link IOException} results from reading from the {@link DataInput} given
          */
-        Spline newSpline(Vector2f left, DataInputStream additionalData) throws IOException;
+        Spline newSpline(Vector2f left, DataInput additionalData) throws IOException;
     }
 }
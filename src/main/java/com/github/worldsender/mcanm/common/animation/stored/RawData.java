@@ -8,7 +8,7 @@ import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 import com.github.worldsender.mcanm.common.resource.IResource;
 import com.github.worldsender.mcanm.common.util.ResourceCache;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
 
@@ -45,10 +45,10 @@ public class RawData implements IAnimationVisitable {
     }
 
     private static RawData loadFrom(IResource resource) throws ModelFormatException {
-        DataInputStream dis = resource.getInputStream();
         RawData data = new RawData();
 
         try {
+            DataInput dis = resource.readContent();
             long magic = dis.readLong();
             if (magic != MAGIC_NUMBER)
                 throw new ModelFormatException(
@@ -77,6 +77,8 @@ public class RawData implements IAnimationVisitable {
         switch (version) {
             case 1:
                 return RawDataV1::loadFrom;
+            case 2:
+                return RawDataV1::loadWithQuaternionTracksFrom;
             default:
                 break;
         }
@@ -93,7 +95,7 @@ public class RawData implements IAnimationVisitable {
     }
 
     private interface VersionizedModelLoader {
-        IVersionSpecificData loadFrom(DataInputStream dis) throws IOException, ModelFormatException;
+        IVersionSpecificData loadFrom(DataInput dis) throws IOException, ModelFormatException;
     }
 
 }
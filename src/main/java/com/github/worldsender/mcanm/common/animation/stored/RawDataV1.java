@@ -7,11 +7,16 @@ import com.github.worldsender.mcanm.common.animation.stored.parts.RawAnimatedBon
 import com.github.worldsender.mcanm.common.animation.visitor.IAnimationVisitor;
 import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Versions 1 and 2 of the animation format. They only differ in the rotation of each bone: version 2 stores it as one
+ * {@link com.github.worldsender.mcanm.common.animation.parts.QuaternionTrack} instead of four separate values. Nothing
+ * writes version 2 yet, it can only be read.
+ */
 public class RawDataV1 implements IVersionSpecificData {
 
     private RawAnimatedBone[] animatedBones;
@@ -19,7 +24,19 @@ public class RawDataV1 implements IVersionSpecificData {
     private RawDataV1() {
     }
 
-    public static RawDataV1 loadFrom(DataInputStream dis) throws IOException, ModelFormatException {
+    public static RawDataV1 loadFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, false);
+    }
+
+    /**
+     * Loads version 2 of the format.
+     */
+    public static RawDataV1 loadWithQuaternionTracksFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, true);
+    }
+
+    private static RawDataV1 loadFrom(DataInput dis, boolean quaternionTracks)
+            throws IOException, ModelFormatException {
         AnimatedTransformBuilder builder = new AnimatedTransformBuilder();
 
         RawDataV1 data = new RawDataV1();
@@ -31,7 +48,12 @@ public class RawDataV1 implements IVersionSpecificData {
             if (!pastNames.add(boneName)) {
                 throw new ModelFormatException("Duplicate bone name: " + boneName);
             }
-            AnimatedTransform boneTransform = builder.fromStream(dis).buildAndReset();
+            if (quaternionTracks) {
+                builder.fromStreamWithQuaternionTrack(dis);
+            } else {
+                builder.fromStream(dis);
+            }
+            AnimatedTransform boneTransform = builder.buildAndReset();
             data.animatedBones[i] = new RawAnimatedBone(boneName, boneTransform);
         }
         return data;
@@ -1,11 +1,15 @@
 package com.github.worldsender.mcanm.common.resource;
 
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
 
+import com.github.worldsender.mcanm.common.util.ByteBufferDataInput;
+
 public abstract class ResourceAdapter implements IResource {
+    private final InputStream source;
     private final DataInputStream dis;
     private final IResourceLocation resLoc;
     public ResourceAdapter(InputStream managed) throws IOException {
@@ -13,10 +17,15 @@ public abstract class ResourceAdapter implements IResource {
     }
 
     public ResourceAdapter(IResourceLocation parent, InputStream managed) throws IOException {
-        this(parent, convertChecked(managed));
+        this(parent, managed, convertChecked(managed));
     }
 
     public ResourceAdapter(IResourceLocation parent, DataInputStream managed) {
+        this(parent, managed, managed);
+    }
+
+    private ResourceAdapter(IResourceLocation parent, InputStream source, DataInputStream managed) {
+        this.source = Objects.requireNonNull(source);
         dis = Objects.requireNonNull(managed);
         resLoc = parent;
     }
@@ -38,6 +47,14 @@ public abstract class ResourceAdapter implements IResource {
         return dis;
     }
 
+    /**
+     * Reads the rest of the underlying stream into memory at once.
+     */
+    @Override
+    public DataInput readContent() throws IOException {
+        return ByteBufferDataInput.readFrom(source);
+    }
+
     @Override
     public IResourceLocation getOrigin() {
         return resLoc;
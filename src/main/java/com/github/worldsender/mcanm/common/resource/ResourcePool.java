@@ -11,6 +11,7 @@ import java.util.function.Predicate;
 
 import com.github.worldsender.mcanm.MCAnm;
 import com.github.worldsender.mcanm.client.ClientResourceLocation;
+import com.github.worldsender.mcanm.common.skeleton.PoseCache;
 
 import net.minecraft.resources.IReloadableResourceManager;
 import net.minecraft.resources.IResourceManager;
@@ -66,12 +67,20 @@ public abstract class ResourcePool<T extends ResourceLocationAdapter> {
     }
 
     private void reload(Predicate<IResourceType> resourcePredicate) {
+        PoseCache.reportAndClearShared();
+        this.onResourcesChanged(resourcePredicate);
         if (!MCAnm.configuration().isReloadEnabled()) {
             return;
         }
         this.onResourceManagerReloaded(resourcePredicate);
     }
 
+    /**
+     * Called on every reload of the resource manager, even when reloading resources is disabled in the configuration.
+     * Use this to drop caches derived from resources.
+     */
+    protected void onResourcesChanged(Predicate<IResourceType> _resourcePredicate) {}
+
     protected void onResourceManagerReloaded(Predicate<IResourceType> _resourcePredicate) {
         forEach(resource -> resource.triggerReload());
     }
@@ -2,16 +2,17 @@ package com.github.worldsender.mcanm.common.skeleton;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
-import java.util.function.Supplier;
-
-import org.apache.commons.lang3.ArrayUtils;
 
+import com.github.worldsender.mcanm.common.animation.AnimationBinding;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.animation.IBindableAnimation;
 import com.github.worldsender.mcanm.common.resource.IResource;
 import com.github.worldsender.mcanm.common.resource.IResourceLocation;
 import com.github.worldsender.mcanm.common.skeleton.parts.Bone;
@@ -21,6 +22,7 @@ import com.github.worldsender.mcanm.common.skeleton.visitor.IBoneVisitor;
 import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitable;
 import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitor;
 import com.github.worldsender.mcanm.common.util.ReloadableData;
+import com.github.worldsender.mcanm.common.util.math.Matrix4f;
 import com.github.worldsender.mcanm.common.util.math.Quat4f;
 import com.github.worldsender.mcanm.common.util.math.Vector3f;
 
@@ -28,21 +30,22 @@ import net.minecraft.client.renderer.Tessellator;
 
 public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable> implements ISkeleton {
 
-    private Bone[] bonesBreadthFirst;
-    private Bone[] bonesByIndex;
-    private Map<String, Bone> bonesByName;
+    /**
+     * Everything built from the loaded data, replaced as a whole when reloading
+     */
+    private volatile Snapshot snapshot;
 
     public AbstractSkeleton(IResourceLocation resLoc, Function<IResource, ISkeletonVisitable> readFunc) {
         super(resLoc, readFunc, RawData.MISSING_DATA);
     }
 
-    private static int doBFSSingleBone(byte[] parents, int index, List<List<Integer>> layers, int[] layerNumbers) {
-        if (index == 0xFF)
+    private static int doBFSSingleBone(int[] parents, int index, List<List<Integer>> layers, int[] layerNumbers) {
+        if (index == -1)
             return -1;
         if (layerNumbers[index] != -1)
             return layerNumbers[index];
         // Determine parent
-        int parent = parents[index] & 0xFF;
+        int parent = parents[index];
         // Determine layer in tree and handle parent first
         int layerNbr = doBFSSingleBone(parents, parent, layers, layerNumbers) + 1;
         // Else handle
@@ -60,10 +63,10 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
      * Orders the bonesBreadthFirst in a breadth first order. This trusts in the bonesBreadthFirst having a tree-like
      * structure. Parent bones will always be ordered before their children
      *
-     * @param src the bone
+     * @param parents the index of the parent of each bone, -1 for bones without a parent
      * @return indices in an order that is breadth first.
      */
-    private static int[] doBFSBoneOrdering(byte[] parents) {
+    private static int[] doBFSBoneOrdering(int[] parents) {
         List<List<Integer>> layers = new ArrayList<>();
         int[] layerNumber = new int[parents.length];
         Arrays.fill(layerNumber, -1);
@@ -82,30 +85,77 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
 
     @Override
     protected void preInit(Object... args) {
-        bonesByName = new HashMap<>();
+        snapshot = new Snapshot(
+                new Bone[0],
+                new Bone[0],
+                Collections.emptyMap(),
+                SkeletonDefinition.EMPTY,
+                new SkeletonPose());
     }
 
     @Override
+    @Deprecated
     protected void loadData(ISkeletonVisitable data) {
-        data.visitBy(this.new SkeletonVisitor());
+        prepareData(data).run();
+    }
+
+    @Override
+    protected Runnable prepareData(ISkeletonVisitable data) {
+        SkeletonVisitor visitor = new SkeletonVisitor();
+        data.visitBy(visitor);
+        Snapshot snapshot = Objects.requireNonNull(visitor.snapshot);
+        return () -> this.snapshot = snapshot;
     }
 
     @Override
     public IBone getBoneByName(String boneName) {
-        IBone bone = bonesByName.get(boneName);
+        IBone bone = snapshot.bonesByName.get(boneName);
         return bone == null ? IBone.STATIC_BONE : bone;
     }
 
     @Override
     public IBone getBoneByIndex(int index) {
+        Bone[] bonesByIndex = snapshot.bonesByIndex;
         return index < 0 || index >= bonesByIndex.length ? IBone.STATIC_BONE : bonesByIndex[index];
     }
 
+    @Override
+    public SkeletonDefinition getDefinition() {
+        return snapshot.definition;
+    }
+
+    @Override
+    public SkeletonPose getDefaultPose() {
+        return snapshot.defaultPose;
+    }
+
+    /**
+     * @return the palette of the default pose, the bones of this skeleton act out the transformations stored in it
+     */
+    public BonePalette getPalette() {
+        return getDefaultPose().getPalette();
+    }
+
+    /**
+     * Gets the binding of the animation to the current definition of this skeleton, see
+     * {@link SkeletonDefinition#getBinding(IBindableAnimation)}.
+     *
+     * @param animation the animation to bind
+     * @return a binding valid for the current state of this skeleton and the animation
+     */
+    public AnimationBinding getBinding(IBindableAnimation animation) {
+        return getDefinition().getBinding(animation);
+    }
+
     @Override
     public void setup(IAnimation animation, float frame) {
-        for (Bone bone : bonesBreadthFirst) {
-            bone.setTransformation(animation, frame);
-        }
+        setup(animation, frame, null);
+    }
+
+    @Override
+    public void setup(IAnimation animation, float frame, EvaluationCursor cursor) {
+        Snapshot current = snapshot;
+        current.definition.evaluate(current.defaultPose, animation, frame, cursor);
     }
 
     @Override
@@ -117,7 +167,7 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
         tess.getWorldRenderer().begin(GL_LINES, new VertexFormat().addElement(VertexFormatElement.EnumUsage.UV));
         startDrawing(GL_LINES);
         glColor4f(0f, 0f, 0f, 1f);
-        for (Bone bone : bonesBreadthFirst) {
+        for (Bone bone : snapshot.bonesBreadthFirst) {
             Vector4f tail = bone.getTail();
             Vector4f head = bone.getHead();
             tess.addVertex(tail.x, tail.z, -tail.y);
@@ -128,24 +178,54 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
         glEnable(GL_TEXTURE_2D);*/
     }
 
-    private class SkeletonVisitor implements ISkeletonVisitor {
-        private List<Byte> parentIndices = new ArrayList<>();
-        private List<Supplier<Bone>> boneSuppliers = new ArrayList<>();
+    /**
+     * The bones and definition of one version of the skeleton. Only the default pose is modified after building.
+     */
+    private static final class Snapshot {
+        private final Bone[] bonesBreadthFirst;
+        private final Bone[] bonesByIndex;
+        private final Map<String, Bone> bonesByName;
+        private final SkeletonDefinition definition;
+        private final SkeletonPose defaultPose;
+
+        private Snapshot(
+                Bone[] bonesBreadthFirst,
+                Bone[] bonesByIndex,
+                Map<String, Bone> bonesByName,
+                SkeletonDefinition definition,
+                SkeletonPose defaultPose) {
+            this.bonesBreadthFirst = bonesBreadthFirst;
+            this.bonesByIndex = bonesByIndex;
+            this.bonesByName = bonesByName;
+            this.definition = definition;
+            this.defaultPose = defaultPose;
+        }
+    }
+
+    private static class SkeletonVisitor implements ISkeletonVisitor {
+        private List<Integer> parentIndices = new ArrayList<>();
+        private List<Function<BonePalette, Bone>> boneSuppliers = new ArrayList<>();
         private Bone[] bones = null;
+        private Snapshot snapshot = null;
 
         @Override
         public IBoneVisitor visitBone(String name) {
             assert parentIndices.size() == boneSuppliers.size();
             final int boneIndex = parentIndices.size();
-            parentIndices.add(boneIndex, (byte) 0xFF);
+            parentIndices.add(boneIndex, -1);
             boneSuppliers.add(boneIndex, null);
 
             return new IBoneVisitor() {
-                private byte parentIndex = -1;
+                private int parentIndex = -1;
                 private BoneBuilder builder = new BoneBuilder(name);
 
                 @Override
                 public void visitParent(byte parentIndex) {
+                    visitParent(Byte.toUnsignedInt(parentIndex));
+                }
+
+                @Override
+                public void visitParent(int parentIndex) {
                     parentIndices.set(boneIndex, parentIndex);
                     this.parentIndex = parentIndex;
                 }
@@ -163,9 +243,11 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
                 @Override
                 public void visitEnd() {
                     if (parentIndex != -1) {
-                        boneSuppliers.set(boneIndex, () -> builder.setParent(bones[parentIndex]).build());
+                        boneSuppliers.set(
+                                boneIndex,
+                                p -> builder.setParent(bones[parentIndex]).setPalette(p, boneIndex).build());
                     } else {
-                        boneSuppliers.set(boneIndex, builder::build);
+                        boneSuppliers.set(boneIndex, p -> builder.setPalette(p, boneIndex).build());
                     }
                 }
             };
@@ -175,20 +257,40 @@ public abstract class AbstractSkeleton extends ReloadableData<ISkeletonVisitable
         public void visitEnd() {
             assert parentIndices.size() == boneSuppliers.size();
             int size = boneSuppliers.size();
-            byte[] parentList = ArrayUtils.toPrimitive(parentIndices.toArray(ArrayUtils.EMPTY_BYTE_OBJECT_ARRAY));
+            int[] parentList = parentIndices.stream().mapToInt(Integer::intValue).toArray();
             int[] breadthFirstOrdering = doBFSBoneOrdering(parentList);
 
-            AbstractSkeleton.this.bonesByIndex = bones = new Bone[size];
-            AbstractSkeleton.this.bonesBreadthFirst = new Bone[size];
-            AbstractSkeleton.this.bonesByName.clear();
+            BonePalette palette = new BonePalette(size);
+            bones = new Bone[size];
+            Bone[] bonesBreadthFirst = new Bone[size];
+            Map<String, Bone> bonesByName = new HashMap<>();
 
+            String[] names = new String[size];
+            int[] parents = new int[size];
+            Matrix4f[] localToParent = new Matrix4f[size];
+            Matrix4f[] inverseBind = new Matrix4f[size];
             for (int i = 0; i < size; i++) {
                 // We have to make the bone breadth first because the supplier accesses its parent bones
                 int index = breadthFirstOrdering[i];
-                Bone b = Objects.requireNonNull(boneSuppliers.get(index).get());
-                bonesBreadthFirst[i] = bonesByIndex[index] = b;
+                Bone b = Objects.requireNonNull(boneSuppliers.get(index).apply(palette));
+                bonesBreadthFirst[i] = bones[index] = b;
                 bonesByName.put(b.name, b);
+
+                names[index] = b.name;
+                parents[index] = parentList[index];
+                b.getLocalToParent(localToParent[index] = new Matrix4f());
+                b.getInverseBind(inverseBind[index] = new Matrix4f());
             }
+            SkeletonDefinition definition =
+                    new SkeletonDefinition(names, parents, localToParent, inverseBind, breadthFirstOrdering);
+            // The bones act out the default pose. Bindings and cached poses refer to the old bone indices, a new
+            // definition invalidates them
+            snapshot = new Snapshot(
+                    bonesBreadthFirst,
+                    bones,
+                    Collections.unmodifiableMap(bonesByName),
+                    definition,
+                    new SkeletonPose(definition, palette));
         }
     }
 
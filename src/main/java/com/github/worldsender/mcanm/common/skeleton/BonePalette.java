@@ -0,0 +1,211 @@
+package com.github.worldsender.mcanm.common.skeleton;
+
+import java.util.Arrays;
+
+import com.github.worldsender.mcanm.common.util.math.Matrix4f;
+import com.github.worldsender.mcanm.common.util.math.Tuple4f;
+import com.github.worldsender.mcanm.common.util.math.Vector3f;
+
+/**
+ * The per-frame state of all bones of a skeleton, packed into one contiguous float array. For each bone, in bone index
+ * order, the palette stores
+ * <ul>
+ * <li>the global matrix of the bone, i.e. its animated local to skeleton space transformation (4x4, row major)
+ * <li>the skinning matrix of the bone, that is the global matrix times the inverse bind matrix (4x4, row major)
+ * <li>the normal matrix, the inverse transpose of the upper 3x3 of the skinning matrix (3x3, row major)
+ * </ul>
+ *
+ * @author WorldSEnder
+ */
+public class BonePalette {
+    public static final int GLOBAL_OFFSET = 0;
+    public static final int SKINNING_OFFSET = 16;
+    public static final int NORMAL_OFFSET = 32;
+    public static final int STRIDE = 41;
+
+    private final float[] data;
+    private final int boneCount;
+
+    public BonePalette(int boneCount) {
+        if (boneCount < 0) {
+            throw new IllegalArgumentException("Negative bone count " + boneCount);
+        }
+        this.boneCount = boneCount;
+        this.data = new float[boneCount * STRIDE];
+        for (int i = 0; i < boneCount; i++) {
+            setIdentity(i);
+        }
+    }
+
+    private static void readMatrix(float[] src, int offset, Matrix4f out) {
+        out.m00 = src[offset];
+        out.m01 = src[offset + 1];
+        out.m02 = src[offset + 2];
+        out.m03 = src[offset + 3];
+        out.m10 = src[offset + 4];
+        out.m11 = src[offset + 5];
+        out.m12 = src[offset + 6];
+        out.m13 = src[offset + 7];
+        out.m20 = src[offset + 8];
+        out.m21 = src[offset + 9];
+        out.m22 = src[offset + 10];
+        out.m23 = src[offset + 11];
+        out.m30 = src[offset + 12];
+        out.m31 = src[offset + 13];
+        out.m32 = src[offset + 14];
+        out.m33 = src[offset + 15];
+    }
+
+    private static void writeMatrix(Matrix4f src, float[] trgt, int offset) {
+        trgt[offset] = src.m00;
+        trgt[offset + 1] = src.m01;
+        trgt[offset + 2] = src.m02;
+        trgt[offset + 3] = src.m03;
+        trgt[offset + 4] = src.m10;
+        trgt[offset + 5] = src.m11;
+        trgt[offset + 6] = src.m12;
+        trgt[offset + 7] = src.m13;
+        trgt[offset + 8] = src.m20;
+        trgt[offset + 9] = src.m21;
+        trgt[offset + 10] = src.m22;
+        trgt[offset + 11] = src.m23;
+        trgt[offset + 12] = src.m30;
+        trgt[offset + 13] = src.m31;
+        trgt[offset + 14] = src.m32;
+        trgt[offset + 15] = src.m33;
+    }
+
+    /**
+     * Multiplies the matrix stored at offset from the left onto matrix, storing the result back into matrix.
+     */
+    private static void mulLeft(float[] src, int o, Matrix4f matrix) {
+        float m00 = src[o] * matrix.m00 + src[o + 1] * matrix.m10 + src[o + 2] * matrix.m20 + src[o + 3] * matrix.m30;
+        float m01 = src[o] * matrix.m01 + src[o + 1] * matrix.m11 + src[o + 2] * matrix.m21 + src[o + 3] * matrix.m31;
+        float m02 = src[o] * matrix.m02 + src[o + 1] * matrix.m12 + src[o + 2] * matrix.m22 + src[o + 3] * matrix.m32;
+        float m03 = src[o] * matrix.m03 + src[o + 1] * matrix.m13 + src[o + 2] * matrix.m23 + src[o + 3] * matrix.m33;
+
+        float m10 = src[o + 4] * matrix.m00 + src[o + 5] * matrix.m10 + src[o + 6] * matrix.m20 + src[o + 7] * matrix.m30;
+        float m11 = src[o + 4] * matrix.m01 + src[o + 5] * matrix.m11 + src[o + 6] * matrix.m21 + src[o + 7] * matrix.m31;
+        float m12 = src[o + 4] * matrix.m02 + src[o + 5] * matrix.m12 + src[o + 6] * matrix.m22 + src[o + 7] * matrix.m32;
+        float m13 = src[o + 4] * matrix.m03 + src[o + 5] * matrix.m13 + src[o + 6] * matrix.m23 + src[o + 7] * matrix.m33;
+
+        float m20 = src[o + 8] * matrix.m00 + src[o + 9] * matrix.m10 + src[o + 10] * matrix.m20 + src[o + 11] * matrix.m30;
+        float m21 = src[o + 8] * matrix.m01 + src[o + 9] * matrix.m11 + src[o + 10] * matrix.m21 + src[o + 11] * matrix.m31;
+        float m22 = src[o + 8] * matrix.m02 + src[o + 9] * matrix.m12 + src[o + 10] * matrix.m22 + src[o + 11] * matrix.m32;
+        float m23 = src[o + 8] * matrix.m03 + src[o + 9] * matrix.m13 + src[o + 10] * matrix.m23 + src[o + 11] * matrix.m33;
+
+        float m30 = src[o + 12] * matrix.m00 + src[o + 13] * matrix.m10 + src[o + 14] * matrix.m20 + src[o + 15] * matrix.m30;
+        float m31 = src[o + 12] * matrix.m01 + src[o + 13] * matrix.m11 + src[o + 14] * matrix.m21 + src[o + 15] * matrix.m31;
+        float m32 = src[o + 12] * matrix.m02 + src[o + 13] * matrix.m12 + src[o + 14] * matrix.m22 + src[o + 15] * matrix.m32;
+        float m33 = src[o + 12] * matrix.m03 + src[o + 13] * matrix.m13 + src[o + 14] * matrix.m23 + src[o + 15] * matrix.m33;
+
+        matrix.m00 = m00; matrix.m01 = m01; matrix.m02 = m02; matrix.m03 = m03;
+        matrix.m10 = m10; matrix.m11 = m11; matrix.m12 = m12; matrix.m13 = m13;
+        matrix.m20 = m20; matrix.m21 = m21; matrix.m22 = m22; matrix.m23 = m23;
+        matrix.m30 = m30; matrix.m31 = m31; matrix.m32 = m32; matrix.m33 = m33;
+    }
+
+    public int getBoneCount() {
+        return boneCount;
+    }
+
+    /**
+     * The backing array of this palette. Bone i starts at <code>i * STRIDE</code>.
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    /**
+     * Resets the bone at the index given to the identity transformation.
+     */
+    public void setIdentity(int bone) {
+        int o = bone * STRIDE;
+        Arrays.fill(data, o, o + STRIDE, 0.0F);
+        for (int i = 0; i < 4; i++) {
+            data[o + GLOBAL_OFFSET + i * 5] = 1.0F;
+            data[o + SKINNING_OFFSET + i * 5] = 1.0F;
+        }
+        for (int i = 0; i < 3; i++) {
+            data[o + NORMAL_OFFSET + i * 4] = 1.0F;
+        }
+    }
+
+    /**
+     * Stores the global matrix of the bone.
+     */
+    public void setGlobal(int bone, Matrix4f global) {
+        writeMatrix(global, data, bone * STRIDE + GLOBAL_OFFSET);
+    }
+
+    /**
+     * Retrieves the global matrix of the bone.
+     */
+    public void getGlobal(int bone, Matrix4f out) {
+        readMatrix(data, bone * STRIDE + GLOBAL_OFFSET, out);
+    }
+
+    /**
+     * Stores the skinning matrix and its normal matrix. Only the upper 3x3 of normalMatrix is used.
+     */
+    public void setSkinning(int bone, Matrix4f skinning, Matrix4f normalMatrix) {
+        int o = bone * STRIDE;
+        writeMatrix(skinning, data, o + SKINNING_OFFSET);
+        o += NORMAL_OFFSET;
+        data[o] = normalMatrix.m00;
+        data[o + 1] = normalMatrix.m01;
+        data[o + 2] = normalMatrix.m02;
+        data[o + 3] = normalMatrix.m10;
+        data[o + 4] = normalMatrix.m11;
+        data[o + 5] = normalMatrix.m12;
+        data[o + 6] = normalMatrix.m20;
+        data[o + 7] = normalMatrix.m21;
+        data[o + 8] = normalMatrix.m22;
+    }
+
+    /**
+     * Retrieves the skinning matrix of the bone.
+     */
+    public void getSkinning(int bone, Matrix4f out) {
+        readMatrix(data, bone * STRIDE + SKINNING_OFFSET, out);
+    }
+
+    /**
+     * matrix = global * matrix
+     */
+    public void mulGlobal(int bone, Matrix4f matrix) {
+        mulLeft(data, bone * STRIDE + GLOBAL_OFFSET, matrix);
+    }
+
+    /**
+     * matrix = skinning * matrix
+     */
+    public void mulSkinning(int bone, Matrix4f matrix) {
+        mulLeft(data, bone * STRIDE + SKINNING_OFFSET, matrix);
+    }
+
+    /**
+     * Transforms the position by the skinning matrix of the bone.
+     */
+    public void transform(int bone, Tuple4f position) {
+        float[] d = data;
+        int o = bone * STRIDE + SKINNING_OFFSET;
+        float x = position.x, y = position.y, z = position.z, w = position.w;
+        position.x = d[o] * x + d[o + 1] * y + d[o + 2] * z + d[o + 3] * w;
+        position.y = d[o + 4] * x + d[o + 5] * y + d[o + 6] * z + d[o + 7] * w;
+        position.z = d[o + 8] * x + d[o + 9] * y + d[o + 10] * z + d[o + 11] * w;
+        position.w = d[o + 12] * x + d[o + 13] * y + d[o + 14] * z + d[o + 15] * w;
+    }
+
+    /**
+     * Transforms the normal by the normal matrix of the bone.
+     */
+    public void transformNormal(int bone, Vector3f normal) {
+        float[] d = data;
+        int o = bone * STRIDE + NORMAL_OFFSET;
+        float x = normal.x, y = normal.y, z = normal.z;
+        normal.x = d[o] * x + d[o + 1] * y + d[o + 2] * z;
+        normal.y = d[o + 3] * x + d[o + 4] * y + d[o + 5] * z;
+        normal.z = d[o + 6] * x + d[o + 7] * y + d[o + 8] * z;
+    }
+}
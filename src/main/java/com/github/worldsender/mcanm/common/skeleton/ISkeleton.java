@@ -1,10 +1,22 @@
 package com.github.worldsender.mcanm.common.skeleton;
 
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
 import com.github.worldsender.mcanm.common.animation.IAnimation;
 import net.minecraft.client.renderer.Tessellator;
 
 public interface ISkeleton {
     ISkeleton EMPTY = new ISkeleton() {
+        private final SkeletonPose pose = new SkeletonPose();
+
+        @Override
+        public SkeletonDefinition getDefinition() {
+            return SkeletonDefinition.EMPTY;
+        }
+
+        @Override
+        public SkeletonPose getDefaultPose() {
+            return pose;
+        }
 
         @Override
         public void setup(IAnimation animation, float frame) {
@@ -25,15 +37,58 @@ public interface ISkeleton {
         }
     };
 
+    /**
+     * @return the current definition of this skeleton, shared by all poses. Changes when the skeleton is reloaded.
+     */
+    SkeletonDefinition getDefinition();
+
+    /**
+     * @return the pose set up by {@link #setup(IAnimation, float)}, the bones of this skeleton act out this pose
+     */
+    SkeletonPose getDefaultPose();
+
+    /**
+     * @return a new pose for an object using this skeleton
+     */
+    default SkeletonPose newPose() {
+        return getDefinition().newPose();
+    }
+
+    /**
+     * Gets the bone with the given name. The bone acts out the {@link #getDefaultPose() default pose}.
+     */
     IBone getBoneByName(String bone);
 
+    /**
+     * Gets the bone at the given index. The bone acts out the {@link #getDefaultPose() default pose}.
+     */
     IBone getBoneByIndex(int index);
 
     /**
-     * Sets up the Skeleton for the animation given
+     * Sets up the default pose of the Skeleton for the animation given
      */
     void setup(IAnimation animation, float frame);
 
+    /**
+     * Sets up the Skeleton for the animation given, using and updating the cursor of the animated object. Skeletons
+     * that don't make use of cursors just ignore it.
+     *
+     * @param cursor the cursor of the animated object, can be <code>null</code>
+     */
+    default void setup(IAnimation animation, float frame, EvaluationCursor cursor) {
+        setup(animation, frame);
+    }
+
+    /**
+     * Evaluates the animation given into a pose of the object being animated, using the cursor of the pose. This does
+     * not touch the default pose, so different objects can be set up independently.
+     *
+     * @param pose the pose to store the result into
+     */
+    default void setup(SkeletonPose pose, IAnimation animation, float frame) {
+        getDefinition().evaluate(pose, animation, frame, pose.getCursor());
+    }
+
     /**
      * Added for debug, don't actually use this, especially when on the server
      *
@@ -0,0 +1,213 @@
+package com.github.worldsender.mcanm.common.skeleton;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.worldsender.mcanm.MCAnm;
+import com.github.worldsender.mcanm.common.animation.IBindableAnimation;
+
+/**
+ * Caches evaluated poses, so that objects playing the same animation on the same skeleton at (nearly) the same frame
+ * share the work. Frames are quantized to multiples of a configurable step and the pose is evaluated at the quantized
+ * frame, so every object hitting the same entry sees exactly the same pose.<br>
+ * The cache holds a bounded number of palettes and evicts the least recently used one first. The array of an evicted
+ * palette is reused for the next pose stored, so a full cache doesn't allocate on misses. Entries are keyed by the
+ * identity of the {@link SkeletonDefinition} and the identity and generation of the animation. A reloaded skeleton
+ * gets a new definition, so reloading either of them never returns stale poses.
+ *
+ * @author WorldSEnder
+ */
+public class PoseCache {
+    private static PoseCache shared;
+
+    private final int maxEntries;
+    private final float frameStep;
+    private final Map<PoseKey, float[]> poses;
+    private final PoseKey lookupKey = new PoseKey();
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxEntries the maximum number of poses to keep, 0 disables the cache
+     * @param frameStep  the step frames are quantized to, must be positive
+     */
+    public PoseCache(int maxEntries, float frameStep) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Negative cache size " + maxEntries);
+        }
+        if (!(frameStep > 0)) {
+            throw new IllegalArgumentException("Frame step must be positive, got " + frameStep);
+        }
+        this.maxEntries = maxEntries;
+        this.frameStep = frameStep;
+        this.poses = new LinkedHashMap<PoseKey, float[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PoseKey, float[]> eldest) {
+                return size() > PoseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by all skeletons, as configured in the {@link MCAnm#configuration()}. Changes to the
+     * configuration take effect after a restart.
+     *
+     * @return the shared cache
+     */
+    public static synchronized PoseCache shared() {
+        if (shared == null) {
+            shared = new PoseCache(
+                    MCAnm.configuration().getPoseCacheSize(),
+                    (float) MCAnm.configuration().getPoseCacheFrameStep());
+        }
+        return shared;
+    }
+
+    /**
+     * Logs the statistics of the shared cache at debug level and empties it. Called when resources are reloaded, the
+     * entries of reloaded skeletons and animations can never be hit again.
+     */
+    public static synchronized void reportAndClearShared() {
+        if (shared == null) {
+            return;
+        }
+        MCAnm.logger().debug("Shared pose cache before reloading: {}", shared);
+        shared.clear();
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * @return the index of the quantized frame, see {@link #getQuantizedFrame(long)}
+     */
+    public long quantize(float frame) {
+        return Math.round(frame / frameStep);
+    }
+
+    /**
+     * @return the frame a pose with the quantized index is evaluated at
+     */
+    public float getQuantizedFrame(long frameIndex) {
+        return frameIndex * frameStep;
+    }
+
+    /**
+     * Copies a cached pose into the palette given.
+     *
+     * @return true if the pose was cached, false if the palette is left untouched
+     */
+    public synchronized boolean restore(
+            SkeletonDefinition skeleton,
+            IBindableAnimation animation,
+            long frameIndex,
+            BonePalette palette) {
+        float[] pose = poses.get(lookupKey.set(skeleton, animation, frameIndex));
+        lookupKey.set(null, null, 0);
+        if (pose == null || pose.length != palette.getData().length) {
+            misses++;
+            return false;
+        }
+        hits++;
+        System.arraycopy(pose, 0, palette.getData(), 0, pose.length);
+        return true;
+    }
+
+    /**
+     * Stores a copy of the palette as the pose of the skeleton at the quantized frame. When the cache is full, the
+     * least recently used entry is evicted and its array reused.
+     */
+    public synchronized void store(
+            SkeletonDefinition skeleton,
+            IBindableAnimation animation,
+            long frameIndex,
+            BonePalette palette) {
+        if (!isEnabled()) {
+            return;
+        }
+        PoseKey key;
+        float[] pose = null;
+        if (poses.size() >= maxEntries) {
+            Iterator<Map.Entry<PoseKey, float[]>> eldest = poses.entrySet().iterator();
+            Map.Entry<PoseKey, float[]> entry = eldest.next();
+            key = entry.getKey();
+            pose = entry.getValue();
+            eldest.remove();
+        } else {
+            key = new PoseKey();
+        }
+        float[] data = palette.getData();
+        if (pose == null || pose.length != data.length) {
+            pose = new float[data.length];
+        }
+        System.arraycopy(data, 0, pose, 0, data.length);
+        poses.put(key.set(skeleton, animation, frameIndex), pose);
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public synchronized void clear() {
+        poses.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return poses.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PoseCache[%d/%d entries, %d hits, %d misses]", poses.size(), maxEntries, hits, misses);
+    }
+
+    private static class PoseKey {
+        private SkeletonDefinition skeleton;
+        private IBindableAnimation animation;
+        private int animationGeneration;
+        private long frameIndex;
+
+        public PoseKey set(SkeletonDefinition skeleton, IBindableAnimation animation, long frameIndex) {
+            this.skeleton = skeleton;
+            this.animation = animation;
+            this.animationGeneration = animation == null ? 0 : animation.getGeneration();
+            this.frameIndex = frameIndex;
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(skeleton);
+            result = 31 * result + System.identityHashCode(animation);
+            result = 31 * result + animationGeneration;
+            result = 31 * result + Long.hashCode(frameIndex);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PoseKey)) {
+                return false;
+            }
+            PoseKey other = (PoseKey) obj;
+            return skeleton == other.skeleton && animation == other.animation
+                    && animationGeneration == other.animationGeneration && frameIndex == other.frameIndex;
+        }
+    }
+}
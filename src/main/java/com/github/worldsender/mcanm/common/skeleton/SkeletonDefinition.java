@@ -0,0 +1,206 @@
+package com.github.worldsender.mcanm.common.skeleton;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import com.github.worldsender.mcanm.common.animation.AnimationBinding;
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
+import com.github.worldsender.mcanm.common.animation.IAnimation;
+import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
+import com.github.worldsender.mcanm.common.animation.IBindableAnimation;
+import com.github.worldsender.mcanm.common.util.math.Matrix4f;
+
+/**
+ * The immutable part of a skeleton: the names and hierarchy of the bones and their bind matrices. A definition holds no
+ * per-frame state, it is shared by every object using the skeleton. The animated state lives in a {@link SkeletonPose}
+ * which is evaluated with {@link #evaluate(SkeletonPose, IAnimation, float, EvaluationCursor)}.<br>
+ * When a skeleton is reloaded, it gets a new definition. Poses evaluated for the old definition adapt themselves on the
+ * next evaluation.
+ *
+ * @author WorldSEnder
+ */
+public final class SkeletonDefinition {
+    public static final SkeletonDefinition EMPTY = new SkeletonDefinition(
+            new String[0],
+            new int[0],
+            new Matrix4f[0],
+            new Matrix4f[0],
+            new int[0]);
+
+    private final String[] names;
+    private final int[] parents;
+    private final Matrix4f[] localToParent;
+    private final Matrix4f[] inverseBind;
+    private final int[] breadthFirst;
+    private final Map<String, Integer> indicesByName;
+    private final Map<IBindableAnimation, AnimationBinding> bindings = new WeakHashMap<>();
+
+    /**
+     * @param names         the names of the bones, by index
+     * @param parents       the index of the parent of each bone, -1 for root bones
+     * @param localToParent the local to parent matrix of each bone in bind pose
+     * @param inverseBind   the inverse bind matrix of each bone, transforming from skeleton into bone space
+     * @param breadthFirst  the indices of all bones, parents ordered before their children
+     */
+    /* package */ SkeletonDefinition(
+            String[] names,
+            int[] parents,
+            Matrix4f[] localToParent,
+            Matrix4f[] inverseBind,
+            int[] breadthFirst) {
+        int count = names.length;
+        if (parents.length != count || localToParent.length != count || inverseBind.length != count
+                || breadthFirst.length != count) {
+            throw new IllegalArgumentException("All bone arrays must have the same length");
+        }
+        this.names = names.clone();
+        this.parents = parents.clone();
+        this.breadthFirst = breadthFirst.clone();
+        this.localToParent = new Matrix4f[count];
+        this.inverseBind = new Matrix4f[count];
+        Map<String, Integer> indicesByName = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            this.localToParent[i] = new Matrix4f(localToParent[i]);
+            this.inverseBind[i] = new Matrix4f(inverseBind[i]);
+            indicesByName.put(Objects.requireNonNull(names[i]), i);
+        }
+        this.indicesByName = Collections.unmodifiableMap(indicesByName);
+    }
+
+    public int getBoneCount() {
+        return names.length;
+    }
+
+    public String getBoneName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the index of the parent of the bone, -1 if it is a root bone
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * @return the index of the bone with the given name, -1 if there is no such bone
+     */
+    public int getBoneIndex(String name) {
+        Integer index = indicesByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Stores the inverse bind matrix of the bone into out.
+     */
+    public void getInverseBind(int index, Matrix4f out) {
+        out.set(inverseBind[index]);
+    }
+
+    /**
+     * Stores the local to parent matrix of the bone in bind pose into out.
+     */
+    public void getLocalToParent(int index, Matrix4f out) {
+        out.set(localToParent[index]);
+    }
+
+    /**
+     * @return a new pose for this skeleton, in bind pose
+     */
+    public SkeletonPose newPose() {
+        return new SkeletonPose(this);
+    }
+
+    /**
+     * Gets the binding of the animation to this skeleton, binding it if it hasn't been bound yet or the binding is
+     * outdated.
+     *
+     * @param animation the animation to bind
+     * @return a binding valid for this skeleton and the current state of the animation
+     */
+    public synchronized AnimationBinding getBinding(IBindableAnimation animation) {
+        AnimationBinding binding = bindings.get(animation);
+        if (binding == null || !binding.isValidFor(animation)) {
+            binding = new AnimationBinding(animation, names);
+            bindings.put(animation, binding);
+        }
+        return binding;
+    }
+
+    /**
+     * Evaluates the animation at the frame given and stores the result into the pose. Poses of different objects can
+     * be evaluated concurrently, a single pose must only be evaluated by one thread at a time.
+     *
+     * @param pose      the pose to store the result into
+     * @param animation the animation to evaluate
+     * @param frame     the frame in the animation
+     * @param cursor    the cursor of the animated object, can be <code>null</code>
+     */
+    public void evaluate(SkeletonPose pose, IAnimation animation, float frame, EvaluationCursor cursor) {
+        pose.prepare(this);
+        BonePalette palette = pose.getPalette();
+        // Parents are ordered before their children, each bone only has to look at its parent's global matrix
+        if (animation instanceof IBindableAnimation) {
+            IBindableAnimation bindable = (IBindableAnimation) animation;
+            PoseCache cache = PoseCache.shared();
+            long frameIndex = 0;
+            if (cache.isEnabled()) {
+                frameIndex = cache.quantize(frame);
+                if (cache.restore(this, bindable, frameIndex, palette)) {
+                    return;
+                }
+                frame = cache.getQuantizedFrame(frameIndex);
+            }
+            AnimationBinding binding = getBinding(bindable);
+            int[] hints = cursor == null ? null : cursor.getSegmentHints(names.length);
+            for (int bone : breadthFirst) {
+                BoneTransformation transform = pose.transformCache;
+                transform.matrix.setIdentity();
+                if (hints == null) {
+                    binding.storeCurrentTransformation(bone, frame, transform);
+                } else {
+                    binding.storeCurrentTransformation(bone, frame, transform, hints);
+                }
+                updatePalette(pose, bone);
+            }
+            cache.store(this, bindable, frameIndex, palette);
+            return;
+        }
+        for (int bone : breadthFirst) {
+            BoneTransformation transform = pose.transformCache;
+            transform.matrix.setIdentity();
+            animation.storeCurrentTransformation(names[bone], frame, transform);
+            updatePalette(pose, bone);
+        }
+    }
+
+    /**
+     * Computes the global matrix of the bone from the global matrix of the parent and the animated transformation in
+     * the transform cache of the pose, the skinning matrix by appending the inverse bind matrix.
+     */
+    private void updatePalette(SkeletonPose pose, int bone) {
+        BonePalette palette = pose.getPalette();
+        Matrix4f global = pose.global;
+        Matrix4f skinning = pose.skinning;
+        Matrix4f normal = pose.normal;
+
+        global.mul(localToParent[bone], pose.transformCache.matrix);
+        if (parents[bone] >= 0) {
+            palette.mulGlobal(parents[bone], global);
+        }
+        palette.setGlobal(bone, global);
+
+        skinning.mul(global, inverseBind[bone]);
+        if (skinning.isAffine()) {
+            normal.setNormalMatrix(skinning);
+        } else {
+            normal.set(skinning);
+            normal.invert();
+            normal.transpose();
+        }
+        palette.setSkinning(bone, skinning, normal);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.worldsender.mcanm.common.skeleton;
+
+import com.github.worldsender.mcanm.common.animation.EvaluationCursor;
+import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
+import com.github.worldsender.mcanm.common.util.math.Matrix4f;
+
+/**
+ * The animated state of a skeleton for one object. A pose is lightweight: the {@link BonePalette} holding the matrices
+ * of all bones, the {@link EvaluationCursor} of the object and some scratch space. Keep one pose per rendered object,
+ * the {@link SkeletonDefinition} is shared between them.<br>
+ * A pose belongs to the definition it was last evaluated for. Evaluating it for a different definition, e.g. after the
+ * skeleton has been reloaded, resizes the palette and resets the cursor.
+ *
+ * @author WorldSEnder
+ */
+public class SkeletonPose {
+    private SkeletonDefinition definition;
+    private BonePalette palette;
+    private EvaluationCursor cursor;
+    // Scratch space for SkeletonDefinition.evaluate
+    /* package */ final BoneTransformation transformCache = new BoneTransformation();
+    /* package */ final Matrix4f global = new Matrix4f();
+    /* package */ final Matrix4f skinning = new Matrix4f();
+    /* package */ final Matrix4f normal = new Matrix4f();
+
+    /**
+     * Constructs a pose that is not yet bound to a definition. It is sized on the first evaluation.
+     */
+    public SkeletonPose() {
+        this(SkeletonDefinition.EMPTY);
+    }
+
+    public SkeletonPose(SkeletonDefinition definition) {
+        prepare(definition);
+    }
+
+    /**
+     * Constructs a pose storing into an existing palette, which must fit the definition.
+     */
+    /* package */ SkeletonPose(SkeletonDefinition definition, BonePalette palette) {
+        if (palette.getBoneCount() != definition.getBoneCount()) {
+            throw new IllegalArgumentException("Palette doesn't fit the skeleton");
+        }
+        this.definition = definition;
+        this.palette = palette;
+        this.cursor = new EvaluationCursor();
+    }
+
+    /**
+     * Makes sure this pose fits the definition given.
+     */
+    /* package */ void prepare(SkeletonDefinition definition) {
+        if (this.definition == definition) {
+            return;
+        }
+        this.definition = definition;
+        this.palette = new BonePalette(definition.getBoneCount());
+        this.cursor = new EvaluationCursor();
+    }
+
+    /**
+     * @return the definition this pose was last evaluated for
+     */
+    public SkeletonDefinition getDefinition() {
+        return definition;
+    }
+
+    public int getBoneCount() {
+        return palette.getBoneCount();
+    }
+
+    /**
+     * @return the matrices of all bones, indexed by bone index
+     */
+    public BonePalette getPalette() {
+        return palette;
+    }
+
+    /**
+     * @return the cursor of the object this pose belongs to
+     */
+    public EvaluationCursor getCursor() {
+        return cursor;
+    }
+}
@@ -3,8 +3,7 @@ package com.github.worldsender.mcanm.common.skeleton.parts;
 import java.util.Objects;
 
 import com.github.worldsender.mcanm.common.Utils;
-import com.github.worldsender.mcanm.common.animation.IAnimation;
-import com.github.worldsender.mcanm.common.animation.IAnimation.BoneTransformation;
+import com.github.worldsender.mcanm.common.skeleton.BonePalette;
 import com.github.worldsender.mcanm.common.skeleton.IBone;
 import com.github.worldsender.mcanm.common.util.math.Matrix4f;
 import com.github.worldsender.mcanm.common.util.math.Point4f;
@@ -12,8 +11,14 @@ import com.github.worldsender.mcanm.common.util.math.Quat4f;
 import com.github.worldsender.mcanm.common.util.math.Vector3f;
 import com.github.worldsender.mcanm.common.util.math.Vector4f;
 
+/**
+ * A bone in bind pose, acting out the transformation stored in its slot of a {@link BonePalette}. Bones don't evaluate
+ * animations themselves, that is done by the {@link com.github.worldsender.mcanm.common.skeleton.SkeletonDefinition}
+ * they are part of.
+ */
 public class Bone implements IBone {
     private static final Matrix4f identity = new Matrix4f();
+    private static final float RIGID_EPSILON = 1e-5F;
 
     static {
         identity.setIdentity();
@@ -22,16 +27,27 @@ public class Bone implements IBone {
     public final String name;
     protected final Matrix4f localToParent;
     protected final Matrix4f parentToLocal;
-    protected Matrix4f transformedGlobalToGlobal = new Matrix4f(); // vertices
-    protected Matrix4f transformedGlobalToGlobalIT = new Matrix4f(); // normals
-    protected BoneTransformation transformCache = new BoneTransformation();
-    protected Matrix4f transformed = transformCache.matrix;
+    /**
+     * The inverse of the bind pose, transforming from global into local space. Computed once when the bone is built.
+     */
+    protected final Matrix4f inverseBind;
+    protected final BonePalette palette;
+    protected final int index;
 
-    protected Bone(Matrix4f localMatrix, String name) {
+    protected Bone(Matrix4f localMatrix, String name, BonePalette palette, int index) {
         this.localToParent = new Matrix4f(localMatrix);
-        this.parentToLocal = new Matrix4f(localMatrix);
-        this.parentToLocal.invert();
+        this.parentToLocal = new Matrix4f();
+        if (localMatrix.isRigid(RIGID_EPSILON)) {
+            this.parentToLocal.invertRigid(localMatrix);
+        } else if (localMatrix.isAffine()) {
+            this.parentToLocal.invertAffine(localMatrix);
+        } else {
+            this.parentToLocal.invert(localMatrix);
+        }
         this.name = Objects.requireNonNull(name);
+        this.palette = Objects.requireNonNull(palette);
+        this.index = index;
+        this.inverseBind = new Matrix4f(parentToLocal);
     }
 
     /**
@@ -41,7 +57,7 @@ public class Bone implements IBone {
      */
     public Vector4f getHead() {
         Matrix4f localToGlobal = new Matrix4f(identity);
-        this.localToGlobal(localToGlobal);
+        this.transformFromLocal(localToGlobal);
 
         Vector4f head = new Vector4f();
         head.y = 1.0f;
@@ -57,7 +73,7 @@ public class Bone implements IBone {
      */
     public Vector4f getTail() {
         Matrix4f localToGlobal = new Matrix4f(identity);
-        this.localToGlobal(localToGlobal);
+        this.transformFromLocal(localToGlobal);
 
         Vector4f tail = new Vector4f();
         tail.w = 1.0f;
@@ -65,53 +81,26 @@ public class Bone implements IBone {
         return tail;
     }
 
-    public void resetTransform() {
-        transformed.set(identity);
-        transformedGlobalToGlobal.set(identity);
-        transformedGlobalToGlobalIT.set(identity);
+    public int getIndex() {
+        return index;
     }
 
     /**
-     * Sets up this bone for the following calls to {@link #getLocalToWorld()}, {@link #getTransformGlobal()} and
-     * {@link #getTransformITGlobal()}.
-     *
-     * @param anim     the animation being executed
-     * @param frame    the frame in the animation
-     * @param subFrame the subframe
+     * Stores the local to parent matrix of this bone in bind pose into out.
      */
-    public void setTransformation(IAnimation anim, float frame) {
-        transformCache.matrix.set(identity);
-        anim.storeCurrentTransformation(this.name, frame, transformCache);
-        // transform = transformCache.matrix;
-
-        transformedGlobalToGlobal.setIdentity();
-        this.globalToLocal(transformedGlobalToGlobal);
-        this.localToGlobal(transformedGlobalToGlobal);
-
-        transformedGlobalToGlobalIT.set(transformedGlobalToGlobal);
-        transformedGlobalToGlobalIT.invert();
-        transformedGlobalToGlobalIT.transpose();
+    public void getLocalToParent(Matrix4f out) {
+        out.set(localToParent);
     }
 
     /**
-     * Transforms the source matrix into local space and stores the resulting matrix back in the source.<br>
-     *
-     * @param src the matrix to transform
+     * Stores the inverse bind matrix of this bone into out.
      */
-    protected void globalToLocal(Matrix4f src) {
-        src.mul(parentToLocal, src);
+    public void getInverseBind(Matrix4f out) {
+        out.set(inverseBind);
     }
 
-    /**
-     * Transforms the source matrix from local into global space and stores the resulting matrix back in the source.<br>
-     * This method is - contrary to {@link #globalToLocal(Matrix4f, Matrix4f)} sensitive to this bone's current
-     * transformation.<br>
-     *
-     * @param src the matrix to transform
-     */
-    protected void localToGlobal(Matrix4f src) {
-        src.mul(transformed, src);
-        src.mul(localToParent, src);
+    public void resetTransform() {
+        palette.setIdentity(index);
     }
 
     /**
@@ -121,32 +110,37 @@ public class Bone implements IBone {
      */
     @Override
     public void transform(Point4f position) {
-        transformedGlobalToGlobal.transform(position);
+        palette.transform(index, position);
     }
 
+    /**
+     * Transforms the source matrix from local into global space and stores the resulting matrix back in the source.<br>
+     * This method is - contrary to {@link #transformToLocal(Matrix4f)} sensitive to this bone's current
+     * transformation.<br>
+     */
     @Override
     public void transformFromLocal(Matrix4f matrix) {
-        localToGlobal(matrix);
+        palette.mulGlobal(index, matrix);
     }
 
     @Override
     public void transformToLocal(Matrix4f matrix) {
-        globalToLocal(matrix);
+        matrix.mul(inverseBind, matrix);
     }
 
     @Override
     public void transform(Matrix4f matrix) {
-        transformedGlobalToGlobal.mul(matrix, matrix);
+        palette.mulSkinning(index, matrix);
     }
 
     /**
      * Transforms the normal given by the transformation currently acted out by this bone.
      *
-     * @param position the position to transform
+     * @param normal the normal to transform
      */
     @Override
     public void transformNormal(Vector3f normal) {
-        transformedGlobalToGlobalIT.transform(normal);
+        palette.transformNormal(index, normal);
     }
 
     public static class BoneBuilder {
@@ -154,6 +148,8 @@ public class Bone implements IBone {
         private Vector3f offset;
         private IBone parent;
         private String name;
+        private BonePalette palette;
+        private int index;
 
         public BoneBuilder() {
             this.rotation = new Quat4f();
@@ -186,41 +182,47 @@ public class Bone implements IBone {
             return this;
         }
 
+        /**
+         * Sets the palette the bone stores its transformation into and the slot in that palette. If not set, the bone
+         * gets a palette of its own.
+         */
+        public BoneBuilder setPalette(BonePalette palette, int index) {
+            if (index < 0 || index >= palette.getBoneCount()) {
+                throw new IndexOutOfBoundsException("Bone index " + index + " not in palette");
+            }
+            this.palette = palette;
+            this.index = index;
+            return this;
+        }
+
         private void reset() {
             this.parent = null;
             this.name = null;
+            this.palette = null;
+            this.index = 0;
             this.offset.set(0, 0, 0);
             this.rotation.set(0, 0, 0, 0);
         }
 
         public Bone build() {
             Matrix4f localToParent = Utils.fromRTS(rotation, offset, 1.0F, new Matrix4f());
+            BonePalette palette = this.palette == null ? new BonePalette(1) : this.palette;
             if (parent != null)
-                return new ParentedBone(localToParent, name, parent);
-            return new Bone(localToParent, name);
+                return new ParentedBone(localToParent, name, palette, index, parent);
+            return new Bone(localToParent, name, palette, index);
         }
     }
 
     private static class ParentedBone extends Bone {
         private IBone parent;
 
-        protected ParentedBone(Matrix4f localToParent, String name, IBone parent) {
-            super(localToParent, name);
+        protected ParentedBone(Matrix4f localToParent, String name, BonePalette palette, int index, IBone parent) {
+            super(localToParent, name, palette, index);
             this.parent = Objects.requireNonNull(parent, String.format("Parent of bone %s can't be null", this.name));
-        }
-
-        @Override
-        protected void globalToLocal(Matrix4f src) {
             // local <- parent <- global
-            this.parent.transformToLocal(src);
-            super.globalToLocal(src);
-        }
-
-        @Override
-        protected void localToGlobal(Matrix4f src) {
-            // world <- parent <- transformedLocal <- local
-            super.localToGlobal(src);
-            this.parent.transformFromLocal(src);
+            this.inverseBind.set(identity);
+            this.parent.transformToLocal(this.inverseBind);
+            this.inverseBind.mul(parentToLocal, this.inverseBind);
         }
     }
 }
@@ -8,7 +8,7 @@ import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitable;
 import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitor;
 import com.github.worldsender.mcanm.common.util.ResourceCache;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.UUID;
@@ -49,9 +49,9 @@ public class RawData implements ISkeletonVisitable {
 
     private static RawData loadFrom(IResource resource) throws ModelFormatException {
         RawData data = new RawData();
-        DataInputStream dis = resource.getInputStream();
 
         try {
+            DataInput dis = resource.readContent();
             long foundMagic = dis.readLong();
             if (foundMagic != MAGIC_NUMBER) {
                 throw new ModelFormatException(
@@ -82,6 +82,8 @@ public class RawData implements ISkeletonVisitable {
         switch (version) {
             case 1:
                 return RawDataV1::loadFrom;
+            case 2:
+                return RawDataV1::loadWideFrom;
             default:
                 break;
         }
@@ -102,7 +104,7 @@ public class RawData implements ISkeletonVisitable {
     }
 
     private interface VersionizedModelLoader {
-        IVersionSpecificData loadFrom(DataInputStream dis) throws IOException, ModelFormatException;
+        IVersionSpecificData loadFrom(DataInput dis) throws IOException, ModelFormatException;
     }
 
 }
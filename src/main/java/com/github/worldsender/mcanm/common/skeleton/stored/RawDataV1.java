@@ -5,19 +5,38 @@ import com.github.worldsender.mcanm.common.exceptions.ModelFormatException;
 import com.github.worldsender.mcanm.common.skeleton.visitor.IBoneVisitor;
 import com.github.worldsender.mcanm.common.skeleton.visitor.ISkeletonVisitor;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Versions 1 and 2 of the skeleton format. Version 2 stores the number of bones and the parent indices as ints instead
+ * of unsigned bytes, so a skeleton is no longer limited to 255 bones. A parent index of 255 in version 1 and -1 in
+ * version 2 means no parent.
+ */
 public class RawDataV1 implements IVersionSpecificData {
 
     private RawBone[] bones;
 
-    public static final RawDataV1 loadFrom(DataInputStream dis) throws IOException, ModelFormatException {
+    public static final RawDataV1 loadFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, false);
+    }
+
+    /**
+     * Loads version 2 of the format.
+     */
+    public static final RawDataV1 loadWideFrom(DataInput dis) throws IOException, ModelFormatException {
+        return loadFrom(dis, true);
+    }
+
+    private static RawDataV1 loadFrom(DataInput dis, boolean isWide) throws IOException, ModelFormatException {
         RawDataV1 data = new RawDataV1();
 
-        int nbrBones = dis.readUnsignedByte();
+        int nbrBones = isWide ? dis.readInt() : dis.readUnsignedByte();
+        if (nbrBones < 0) {
+            throw new ModelFormatException("Negative number of bones: " + nbrBones);
+        }
         // Read bones
         RawBone[] bones = new RawBone[nbrBones];
         Set<String> boneNameSet = new HashSet<>();
@@ -27,21 +46,22 @@ public class RawDataV1 implements IVersionSpecificData {
                 throw new ModelFormatException("Two bones with same name " + newBone.name);
             bones[i] = newBone;
         }
-        readBoneParents(dis, bones); // Structure has to be tree-like
+        readBoneParents(dis, bones, isWide); // Structure has to be tree-like
 
         data.bones = bones;
         return data;
     }
 
-    private static void readBoneParents(DataInputStream di, RawBone[] bones) throws IOException {
+    private static void readBoneParents(DataInput di, RawBone[] bones, boolean isWide) throws IOException {
         int nbrBones = bones.length;
+        int noParent = isWide ? -1 : 255;
         for (RawBone bone : bones) {
-            int parentIndex = di.readUnsignedByte();
-            if (parentIndex != 255 && parentIndex >= nbrBones) {
+            int parentIndex = isWide ? di.readInt() : di.readUnsignedByte();
+            if (parentIndex != noParent && (parentIndex < 0 || parentIndex >= nbrBones)) {
                 throw new ModelFormatException(
                         String.format("ParentIndex (%d) has to be smaller than nbrBones (%d).", parentIndex, nbrBones));
             }
-            bone.parent = (byte) parentIndex;
+            bone.parent = parentIndex == noParent ? -1 : parentIndex;
         }
     }
 
@@ -49,7 +69,7 @@ public class RawDataV1 implements IVersionSpecificData {
     public void visitBy(ISkeletonVisitor visitor) {
         for (RawBone bone : bones) {
             IBoneVisitor boneVisitor = visitor.visitBone(bone.name);
-            if (bone.parent != 0xFF) {
+            if (bone.parent != -1) {
                 boneVisitor.visitParent(bone.parent);
             }
             boneVisitor.visitLocalOffset(bone.offset);
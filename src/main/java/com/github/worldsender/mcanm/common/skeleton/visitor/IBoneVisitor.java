@@ -4,8 +4,31 @@ import com.github.worldsender.mcanm.common.util.math.Quat4f;
 import com.github.worldsender.mcanm.common.util.math.Vector3f;
 
 public interface IBoneVisitor {
+    /**
+     * Visits the parent of the bone as an unsigned byte. Not visited for bones without a parent.<br>
+     * Only called through {@link #visitParent(int)}, override that one as well to support skeletons with more than 255
+     * bones.
+     *
+     * @param parentIndex the index of the parent bone, in the order the bones are visited
+     */
     void visitParent(byte parentIndex);
 
+    /**
+     * Visits the parent of the bone. Not visited for bones without a parent. The default implementation forwards to
+     * {@link #visitParent(byte)}.
+     *
+     * @param parentIndex the index of the parent bone, in the order the bones are visited
+     * @throws IllegalArgumentException if the index doesn't fit into a byte and this method isn't overridden
+     */
+    default void visitParent(int parentIndex) {
+        if (parentIndex < 0 || parentIndex >= 0xFF) {
+            throw new IllegalArgumentException(
+                    "Parent index " + parentIndex + " doesn't fit into a byte, " + getClass()
+                            + " has to override visitParent(int)");
+        }
+        visitParent((byte) parentIndex);
+    }
+
     void visitLocalOffset(Vector3f headPosition);
 
     void visitLocalRotation(Quat4f rotation);
@@ -0,0 +1,184 @@
+package com.github.worldsender.mcanm.common.util;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link DataInput} reading from a {@link ByteBuffer} that holds the whole resource. Every read is an absolute,
+ * bounds-checked get from the buffer, so parsing doesn't go through a chain of streams for every value. Reading past
+ * the end throws an {@link EOFException}, just like {@link DataInputStream}.<br>
+ * Use {@link #readFrom(InputStream)} to read a stream into memory.
+ *
+ * @author WorldSEnder
+ */
+public final class ByteBufferDataInput implements DataInput {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Reads from the remaining bytes of the buffer given. The buffer itself is not modified.
+     */
+    public ByteBufferDataInput(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        this.limit = this.buffer.limit();
+        this.position = 0;
+    }
+
+    /**
+     * Reads the rest of the stream into memory at once. Files are not memory-mapped on purpose: a mapping is only
+     * released on garbage collection and keeps the file locked on some systems, so it couldn't be edited and reloaded.
+     *
+     * @param stream the stream to read, not closed
+     * @return a data input over the content of the stream
+     */
+    public static ByteBufferDataInput readFrom(InputStream stream) throws IOException {
+        return new ByteBufferDataInput(ByteBuffer.wrap(ByteStreams.toByteArray(stream)));
+    }
+
+    /**
+     * @return the number of bytes left
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * Advances the position by the number of bytes given.
+     *
+     * @return the position before advancing
+     */
+    private int advance(int count) throws EOFException {
+        int at = position;
+        if (count > limit - at) {
+            position = limit;
+            throw new EOFException();
+        }
+        position = at + count;
+        return at;
+    }
+
+    /**
+     * Reads the next bytes as a buffer without copying them. The buffer is only valid while the resource is, copy
+     * out what needs to be kept.
+     *
+     * @param length the number of bytes to read
+     * @return a read-only, big endian buffer of the bytes
+     */
+    public ByteBuffer readSlice(int length) throws EOFException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length: " + length);
+        }
+        int at = advance(length);
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(at + length).position(at);
+        return slice.slice().asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        int at = advance(len);
+        for (int i = 0; i < len; i++) {
+            b[off + i] = buffer.get(at + i);
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, limit - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return buffer.get(advance(1));
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return buffer.getShort(advance(2));
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return buffer.getChar(advance(2));
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return buffer.getInt(advance(4));
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return buffer.getLong(advance(8));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return buffer.getFloat(advance(4));
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return buffer.getDouble(advance(8));
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (position == limit) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (position < limit) {
+            char c = (char) (buffer.get(position++) & 0xFF);
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (position < limit && buffer.get(position) == '\n') {
+                    position++;
+                }
+                break;
+            }
+            line.append(c);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -3,19 +3,36 @@ package com.github.worldsender.mcanm.common.util;
 import com.github.worldsender.mcanm.MCAnm;
 import com.github.worldsender.mcanm.common.resource.IResource;
 import com.github.worldsender.mcanm.common.resource.IResourceLocation;
+import com.github.worldsender.mcanm.common.resource.ResourceAdapter;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.minecraft.util.ResourceLocation;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public abstract class ReloadableData<D> {
+    /**
+     * Parses and prepares the data in the background when reloading asynchronously. One thread is enough, reloads are
+     * rare and this keeps them in order.
+     */
+    private static final ExecutorService RELOAD_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("MCAnm reload").setDaemon(true).build());
 
     // Keep this around so that it doesn't get garbage collected
     private final IResourceLocation reloadLocation;
     private Function<IResource, D> loader;
     private D latestData;
     private D defaultData;
+    private volatile int generation = 0;
+    private final AtomicInteger reloadRequests = new AtomicInteger();
+    private int publishedRequest = 0;
 
     /**
      * Constructs Reloadable Data by first opening the initial resource and then reading from it.<br>
@@ -62,13 +79,102 @@ public abstract class ReloadableData<D> {
         }
     }
 
+    /**
+     * Reads the whole resource into memory, so that it can be parsed after the resource manager has moved on.
+     */
+    private IResource readIntoMemory() throws IOException {
+        try (IResource resource = reloadLocation.open()) {
+            byte[] content = ByteStreams.toByteArray(resource.getInputStream());
+            return new ResourceAdapter(reloadLocation, new ByteArrayInputStream(content)) {};
+        }
+    }
+
     private void reload(IResourceLocation dummy) {
         assert dummy == reloadLocation;
-        loadData(getData());
+        int request = reloadRequests.incrementAndGet();
+        // The first load is always synchronous, there is nothing to show until it's done
+        if (generation == 0 || !MCAnm.configuration().isAsyncReloadEnabled()) {
+            publish(request, prepareData(getData()));
+            return;
+        }
+        // The resource manager may be reloading again or closing its packs once this callback returns, so the bytes
+        // are read right away. Only parsing and preparing happens in the background.
+        IResource inMemory;
+        try {
+            inMemory = readIntoMemory();
+        } catch (IOException ioe) {
+            MCAnm.logger().error(
+                    "Failed reloading " + reloadLocation.getResourceName() + ", keeping the previous data",
+                    ioe);
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> {
+            D data = loader.apply(inMemory);
+            // The loaders log the error and fall back to the default data when the resource is malformed
+            return data == defaultData ? null : prepareData(data);
+        }, RELOAD_EXECUTOR).thenAccept(publisher -> {
+            if (publisher == null) {
+                MCAnm.logger().warn("Keeping the previous data of " + reloadLocation.getResourceName());
+                return;
+            }
+            publish(request, publisher);
+        }).exceptionally(e -> {
+            MCAnm.logger().error(
+                    "Failed reloading " + reloadLocation.getResourceName() + ", keeping the previous data",
+                    e);
+            return null;
+        });
+    }
+
+    /**
+     * Publishes the data of a reload, unless the data of a later reload has already been published.
+     */
+    private synchronized void publish(int request, Runnable publisher) {
+        if (request <= publishedRequest) {
+            return;
+        }
+        publishedRequest = request;
+        publisher.run();
+        generation++;
+    }
+
+    /**
+     * Prepares freshly loaded data. When reloading asynchronously, this is called on a background thread while the
+     * previous data is still in use, so everything derived from the data should be built into a new, immutable
+     * snapshot here without touching the current state.<br>
+     * The returned action publishes the snapshot, it should be nothing more than a write to a volatile field. It is
+     * only run if no later reload has been published already.<br>
+     * The default implementation defers everything to {@link #loadData(Object)} when publishing, for subclasses that
+     * predate snapshots.
+     *
+     * @param data the data loaded
+     * @return an action that makes the prepared snapshot the current one
+     */
+    protected Runnable prepareData(D data) {
+        return () -> loadData(data);
     }
 
+    /**
+     * Loads the data into this object in place. Only called by the default implementation of
+     * {@link #prepareData(Object)}.
+     *
+     * @param data the data loaded
+     * @deprecated override {@link #prepareData(Object)} instead, updating the data in place is not safe while a
+     *             reload is running in the background
+     */
+    @Deprecated
     protected abstract void loadData(D data);
 
+    /**
+     * A counter that is increased every time the data has been (re)loaded. Use this to check if anything derived from
+     * the data is still up to date.
+     *
+     * @return the number of times the data has been loaded
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     /**
      * Gets the {@link ResourceLocation} this model was loaded from.
      *
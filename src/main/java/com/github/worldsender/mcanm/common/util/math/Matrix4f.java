@@ -1669,6 +1669,132 @@ public class Matrix4f {
      invertGeneral( this );    
   }
 
+    /**
+     * Returns true if the bottom row of this matrix is (0, 0, 0, 1), i.e. it
+     * only consists of a linear part (upper 3x3) and a translation.
+     * @return true if this matrix is affine
+     */
+    public final boolean isAffine()
+    {
+        return m30 == 0.0f && m31 == 0.0f && m32 == 0.0f && m33 == 1.0f;
+    }
+
+    /**
+     * Returns true if this matrix is affine and its upper 3x3 is orthonormal
+     * with a positive determinant, i.e. it is a pure rotation and translation.
+     * @param epsilon  the threshold on each entry of R * R^T - I
+     * @return true if this matrix is a rigid transformation
+     */
+    public final boolean isRigid(float epsilon)
+    {
+        if (!isAffine())
+            return false;
+        float d00 = m00*m00 + m01*m01 + m02*m02 - 1.0f;
+        float d11 = m10*m10 + m11*m11 + m12*m12 - 1.0f;
+        float d22 = m20*m20 + m21*m21 + m22*m22 - 1.0f;
+        float d01 = m00*m10 + m01*m11 + m02*m12;
+        float d02 = m00*m20 + m01*m21 + m02*m22;
+        float d12 = m10*m20 + m11*m21 + m12*m22;
+        if (Math.abs(d00) > epsilon || Math.abs(d11) > epsilon || Math.abs(d22) > epsilon
+                || Math.abs(d01) > epsilon || Math.abs(d02) > epsilon || Math.abs(d12) > epsilon)
+            return false;
+        return m00*(m11*m22 - m12*m21) - m01*(m10*m22 - m12*m20) + m02*(m10*m21 - m11*m20) > 0.0f;
+    }
+
+    /**
+     * Sets the value of this matrix to the inverse of the rigid
+     * transformation m1 (rotation and translation only). The rotation is
+     * transposed and the translation rotated back, no allocation or
+     * decomposition takes place. The result is undefined if m1 is not rigid,
+     * see {@link #isRigid(float)}.
+     * @param m1 the rigid matrix to be inverted
+     */
+    public final void invertRigid(Matrix4f m1)
+    {
+        float r00 = m1.m00, r01 = m1.m10, r02 = m1.m20;
+        float r10 = m1.m01, r11 = m1.m11, r12 = m1.m21;
+        float r20 = m1.m02, r21 = m1.m12, r22 = m1.m22;
+        float tx = m1.m03, ty = m1.m13, tz = m1.m23;
+
+        this.m00 = r00; this.m01 = r01; this.m02 = r02;
+        this.m10 = r10; this.m11 = r11; this.m12 = r12;
+        this.m20 = r20; this.m21 = r21; this.m22 = r22;
+        this.m03 = -(r00*tx + r01*ty + r02*tz);
+        this.m13 = -(r10*tx + r11*ty + r12*tz);
+        this.m23 = -(r20*tx + r21*ty + r22*tz);
+        this.m30 = 0.0f; this.m31 = 0.0f; this.m32 = 0.0f; this.m33 = 1.0f;
+    }
+
+    /**
+     * Sets the value of this matrix to the inverse of the affine matrix m1.
+     * The upper 3x3 is inverted via its cofactors, the translation is
+     * transformed by the inverted 3x3. Unlike {@link #invert(Matrix4f)} this
+     * allocates nothing. The result is undefined if m1 is not affine, see
+     * {@link #isAffine()}.
+     * @param m1 the affine matrix to be inverted
+     * @exception SingularMatrixException if the upper 3x3 of m1 is singular
+     */
+    public final void invertAffine(Matrix4f m1)
+    {
+        float c00 = m1.m11*m1.m22 - m1.m12*m1.m21;
+        float c01 = m1.m12*m1.m20 - m1.m10*m1.m22;
+        float c02 = m1.m10*m1.m21 - m1.m11*m1.m20;
+        float det = m1.m00*c00 + m1.m01*c01 + m1.m02*c02;
+        if (det == 0.0f) {
+            throw new SingularMatrixException(VecMathI18N.getString("Matrix4f12"));
+        }
+        float invDet = 1.0f / det;
+        float c10 = m1.m02*m1.m21 - m1.m01*m1.m22;
+        float c11 = m1.m00*m1.m22 - m1.m02*m1.m20;
+        float c12 = m1.m01*m1.m20 - m1.m00*m1.m21;
+        float c20 = m1.m01*m1.m12 - m1.m02*m1.m11;
+        float c21 = m1.m02*m1.m10 - m1.m00*m1.m12;
+        float c22 = m1.m00*m1.m11 - m1.m01*m1.m10;
+        float tx = m1.m03, ty = m1.m13, tz = m1.m23;
+
+        // inverse = transpose of the cofactor matrix / det
+        this.m00 = c00*invDet; this.m01 = c10*invDet; this.m02 = c20*invDet;
+        this.m10 = c01*invDet; this.m11 = c11*invDet; this.m12 = c21*invDet;
+        this.m20 = c02*invDet; this.m21 = c12*invDet; this.m22 = c22*invDet;
+        this.m03 = -(this.m00*tx + this.m01*ty + this.m02*tz);
+        this.m13 = -(this.m10*tx + this.m11*ty + this.m12*tz);
+        this.m23 = -(this.m20*tx + this.m21*ty + this.m22*tz);
+        this.m30 = 0.0f; this.m31 = 0.0f; this.m32 = 0.0f; this.m33 = 1.0f;
+    }
+
+    /**
+     * Sets the upper 3x3 of this matrix to the inverse transpose of the upper
+     * 3x3 of m1, computed via cofactors without allocating. This is the
+     * matrix that transforms normals when m1 transforms positions. The
+     * remaining elements are set as in an identity matrix.
+     * @param m1 the matrix whose normal matrix is computed
+     * @exception SingularMatrixException if the upper 3x3 of m1 is singular
+     */
+    public final void setNormalMatrix(Matrix4f m1)
+    {
+        float c00 = m1.m11*m1.m22 - m1.m12*m1.m21;
+        float c01 = m1.m12*m1.m20 - m1.m10*m1.m22;
+        float c02 = m1.m10*m1.m21 - m1.m11*m1.m20;
+        float det = m1.m00*c00 + m1.m01*c01 + m1.m02*c02;
+        if (det == 0.0f) {
+            throw new SingularMatrixException(VecMathI18N.getString("Matrix3f12"));
+        }
+        float invDet = 1.0f / det;
+        float c10 = m1.m02*m1.m21 - m1.m01*m1.m22;
+        float c11 = m1.m00*m1.m22 - m1.m02*m1.m20;
+        float c12 = m1.m01*m1.m20 - m1.m00*m1.m21;
+        float c20 = m1.m01*m1.m12 - m1.m02*m1.m11;
+        float c21 = m1.m02*m1.m10 - m1.m00*m1.m12;
+        float c22 = m1.m00*m1.m11 - m1.m01*m1.m10;
+
+        // inverse transpose = cofactor matrix / det
+        this.m00 = c00*invDet; this.m01 = c01*invDet; this.m02 = c02*invDet;
+        this.m10 = c10*invDet; this.m11 = c11*invDet; this.m12 = c12*invDet;
+        this.m20 = c20*invDet; this.m21 = c21*invDet; this.m22 = c22*invDet;
+        this.m03 = 0.0f; this.m13 = 0.0f; this.m23 = 0.0f;
+        this.m30 = 0.0f; this.m31 = 0.0f; this.m32 = 0.0f; this.m33 = 1.0f;
+    }
+
     /**
      * General invert routine.  Inverts m1 and places the result in "this".
      * Note that this routine handles both the "this" version and the